@@ -0,0 +1,12 @@
+package io.github.chengsean.suda.core.exception;
+
+/**
+ * 对象图超出限制异常，对象入参的嵌套深度或对象数量超出检查的限制，超出的部分无法检查，拒绝入参
+ * @author chengshaozhuang
+ */
+public class ObjectGraphLimitExceededException extends RuntimeException {
+
+    public ObjectGraphLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.chengsean.suda.core.handler;
+
+import io.github.chengsean.suda.core.matcher.SQLKeywordMatcher;
+import io.github.chengsean.suda.core.matcher.ServletPathWhitelistMatcher;
+import io.github.chengsean.suda.core.matcher.XSSMatcher;
+import io.github.chengsean.suda.core.util.ServletRequestUtils;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Objects;
+
+/**
+ * 请求的参数检查策略，即当前请求启用了哪些检查、使用哪些规则。每个请求只计算一次（接口路径解析、白名单匹配），
+ * 保存在请求属性中，之后对每个参数、每个嵌套字符串的检查都直接读取，不可变且线程安全。
+ * 配置变更（见{@link ArgumentHandlerProperties#getRevision()}）后重新计算；请求属性在转发（forward）、包含（include）
+ * 和错误处理（error）时共享，接口路径或者分派类型与计算时不同时也重新计算，避免沿用原接口路径的白名单
+ * @author chengshaozhuang
+ */
+public final class ArgumentHandlerPolicy {
+
+    private final ArgumentHandlerProperties properties;
+    private final long revision;
+    private final String servletPath;
+    private final DispatcherType dispatcherType;
+    private final boolean sqlInjectCheck;
+    private final boolean xssAttackCheck;
+    private final boolean filesCheck;
+    private final boolean trimEnabled;
+    private final InspectorEngine inspectorEngine;
+    private final SQLKeywordMatcher sqlKeywordMatcher;
+    private final XSSMatcher xssMatcher;
+
+    private ArgumentHandlerPolicy(HttpServletRequest request, ArgumentHandlerProperties properties) {
+        // 先读取修订号，计算期间配置变更时下次会重新计算
+        this.revision = properties.getRevision();
+        this.properties = properties;
+        this.servletPath = ServletRequestUtils.getServletPath(request);
+        this.dispatcherType = request.getDispatcherType();
+        int whitelisted = properties.getServletPathWhitelistMatcher().match(servletPath);
+        this.sqlInjectCheck = properties.getSqlInject().isCheckEnabled() &&
+                (whitelisted & ServletPathWhitelistMatcher.SQL_INJECT) == 0;
+        this.xssAttackCheck = properties.getXssAttack().isCheckEnabled() &&
+                (whitelisted & ServletPathWhitelistMatcher.XSS_ATTACK) == 0;
+        this.filesCheck = properties.getFiles().isCheckEnabled() &&
+                (whitelisted & ServletPathWhitelistMatcher.FILES) == 0;
+        this.trimEnabled = properties.getChars().isTrimEnabled();
+        this.inspectorEngine = properties.getChars().getInspectorEngine();
+        this.sqlKeywordMatcher = properties.getSqlInject().getSqlKeywordMatcher();
+        this.xssMatcher = properties.getXssAttack().getXssMatcher();
+    }
+
+    /**
+     * 获取请求的参数检查策略，请求中没有或者已过期时计算并保存到请求属性中
+     * @author chengshaozhuang
+     * @param request 请求
+     * @param properties 参数安全检查配置
+     * @return io.github.chengsean.suda.core.handler.ArgumentHandlerPolicy
+     */
+    public static ArgumentHandlerPolicy resolve(HttpServletRequest request, ArgumentHandlerProperties properties) {
+        String attribute = properties.getPolicyAttribute();
+        Object policy = request.getAttribute(attribute);
+        if (policy instanceof ArgumentHandlerPolicy && ((ArgumentHandlerPolicy) policy).isResolvedFrom(request, properties)) {
+            return (ArgumentHandlerPolicy) policy;
+        }
+        ArgumentHandlerPolicy resolved = new ArgumentHandlerPolicy(request, properties);
+        request.setAttribute(attribute, resolved);
+        return resolved;
+    }
+
+    private boolean isResolvedFrom(HttpServletRequest request, ArgumentHandlerProperties properties) {
+        return this.properties == properties && this.revision == properties.getRevision()
+                && this.dispatcherType == request.getDispatcherType()
+                && Objects.equals(this.servletPath, ServletRequestUtils.getServletPath(request));
+    }
+
+    public String getServletPath() {
+        return servletPath;
+    }
+
+    public boolean isSqlInjectCheck() {
+        return sqlInjectCheck;
+    }
+
+    public boolean isXssAttackCheck() {
+        return xssAttackCheck;
+    }
+
+    public boolean isFilesCheck() {
+        return filesCheck;
+    }
+
+    public boolean isTrimEnabled() {
+        return trimEnabled;
+    }
+
+    public InspectorEngine getInspectorEngine() {
+        return inspectorEngine;
+    }
+
+    public SQLKeywordMatcher getSqlKeywordMatcher() {
+        return sqlKeywordMatcher;
+    }
+
+    public XSSMatcher getXssMatcher() {
+        return xssMatcher;
+    }
+}
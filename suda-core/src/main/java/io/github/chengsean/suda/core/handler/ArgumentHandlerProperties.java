@@ -1,9 +1,15 @@
 package io.github.chengsean.suda.core.handler;
 
+import io.github.chengsean.suda.core.matcher.SQLKeywordMatcher;
+import io.github.chengsean.suda.core.matcher.ServletPathWhitelistMatcher;
+import io.github.chengsean.suda.core.matcher.XSSMatcher;
+import io.github.chengsean.suda.core.tika.MimeRepositoryMode;
 import io.github.chengsean.suda.core.util.StringUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 参数安全检查配置，用于接收自动配置类的数据
@@ -11,10 +17,17 @@ import java.util.List;
  */
 public class ArgumentHandlerProperties {
 
-    private final XSSAttack xssAttack = new XSSAttack();
-    private final SQLInject sqlInject = new SQLInject();
-    private final Chars chars = new Chars();
-    private final Files files = new Files();
+    // 配置修订号，任何配置项变更时递增，用于判断由配置推导出的对象是否过期
+    private final AtomicLong revision = new AtomicLong();
+    private final XSSAttack xssAttack = new XSSAttack(revision);
+    private final SQLInject sqlInject = new SQLInject(revision);
+    private final Chars chars = new Chars(revision);
+    private final Files files = new Files(revision);
+    // 请求策略在请求属性中的名称，每份配置各自独立
+    private final String policyAttribute = ArgumentHandlerPolicy.class.getName() + "@" +
+            Integer.toHexString(System.identityHashCode(this));
+    // 由各项检查的接口白名单编译的匹配器，白名单变更后重新编译
+    private volatile ServletPathWhitelistMatcher servletPathWhitelistMatcher;
 
     public XSSAttack getXssAttack() {
         return xssAttack;
@@ -32,6 +45,36 @@ public class ArgumentHandlerProperties {
         return files;
     }
 
+    /**
+     * 获取由各项检查的接口白名单编译的匹配器
+     * @author chengshaozhuang
+     * @return io.github.chengsean.suda.core.matcher.ServletPathWhitelistMatcher
+     */
+    public ServletPathWhitelistMatcher getServletPathWhitelistMatcher() {
+        List<String> xssWhitelist = xssAttack.getServletPathWhitelist();
+        List<String> sqlWhitelist = sqlInject.getServletPathWhitelist();
+        List<String> filesWhitelist = files.getServletPathWhitelist();
+        ServletPathWhitelistMatcher matcher = this.servletPathWhitelistMatcher;
+        if (matcher == null || !matcher.isBuiltFrom(xssWhitelist, sqlWhitelist, filesWhitelist)) {
+            matcher = ServletPathWhitelistMatcher.compile(xssWhitelist, sqlWhitelist, filesWhitelist);
+            this.servletPathWhitelistMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    /**
+     * 获取配置修订号，任何配置项变更时递增
+     * @author chengshaozhuang
+     * @return long
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    String getPolicyAttribute() {
+        return policyAttribute;
+    }
+
     public boolean hasBeenCustomized() {
         return this.chars.hasBeenCustomized() ||
                 this.sqlInject.hasBeenCustomized() ||
@@ -40,11 +83,28 @@ public class ArgumentHandlerProperties {
     }
 
     public static class Chars {
+        private final AtomicLong revision;
         // 是否对字符串去空格
         private boolean trimEnabled = true;
+        // 字符串检查引擎
+        private InspectorEngine inspectorEngine = InspectorEngine.STANDARD;
+        // 检查对象入参时，嵌套对象的最大遍历深度（0表示只检查对象自身的字符串属性）
+        private int objectGraphMaxDepth = 16;
+        // 检查对象入参时，最多遍历的对象（包括集合、数组）数量
+        private int objectGraphMaxNodes = 10000;
+        // 是否注册Jackson字符串检查模块，在反序列化请求体的同时检查JSON字符串，默认不启用
+        private boolean jacksonModuleEnabled = false;
 
         private boolean customized = false;
 
+        public Chars() {
+            this(new AtomicLong());
+        }
+
+        Chars(AtomicLong revision) {
+            this.revision = revision;
+        }
+
         public boolean isTrimEnabled() {
             return trimEnabled;
         }
@@ -52,6 +112,47 @@ public class ArgumentHandlerProperties {
         public void setTrimEnabled(boolean trimEnabled) {
             this.trimEnabled = trimEnabled;
             this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public InspectorEngine getInspectorEngine() {
+            return inspectorEngine;
+        }
+
+        public void setInspectorEngine(InspectorEngine inspectorEngine) {
+            this.inspectorEngine = inspectorEngine;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getObjectGraphMaxDepth() {
+            return objectGraphMaxDepth;
+        }
+
+        public void setObjectGraphMaxDepth(int objectGraphMaxDepth) {
+            this.objectGraphMaxDepth = objectGraphMaxDepth;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getObjectGraphMaxNodes() {
+            return objectGraphMaxNodes;
+        }
+
+        public void setObjectGraphMaxNodes(int objectGraphMaxNodes) {
+            this.objectGraphMaxNodes = objectGraphMaxNodes;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public boolean isJacksonModuleEnabled() {
+            return jacksonModuleEnabled;
+        }
+
+        public void setJacksonModuleEnabled(boolean jacksonModuleEnabled) {
+            this.jacksonModuleEnabled = jacksonModuleEnabled;
+            this.customized = true;
+            this.revision.incrementAndGet();
         }
 
         public boolean hasBeenCustomized() {
@@ -60,6 +161,7 @@ public class ArgumentHandlerProperties {
     }
 
     public static class XSSAttack {
+        private final AtomicLong revision;
         // 是否启用XSS攻击检查，默认不启用
         private boolean checkEnabled = false;
         private boolean customized = false;
@@ -68,6 +170,16 @@ public class ArgumentHandlerProperties {
         // 检查XSS攻击的正则表达式
         private String[] xssRegexList = new String[] {"[\\S\\s\\t\\r\\n]*<[\\S\\s\\t\\r\\n]+(/)?>[\\S\\s\\t\\r\\n]*",
                 "[\\S\\s\\t\\r\\n]*<[\\S\\s\\t\\r\\n]+>[\\S\\s\\t\\r\\n]+</[\\S\\s\\t\\r\\n]+>[\\S\\s\\t\\r\\n]*"};
+        // 由正则表达式列表编译的检测规则，默认正则由内置的线性检测器处理
+        private volatile XSSMatcher xssMatcher = XSSMatcher.compile(xssRegexList);
+
+        public XSSAttack() {
+            this(new AtomicLong());
+        }
+
+        XSSAttack(AtomicLong revision) {
+            this.revision = revision;
+        }
 
         public boolean isCheckEnabled() {
             return checkEnabled;
@@ -76,6 +188,7 @@ public class ArgumentHandlerProperties {
         public void setCheckEnabled(boolean checkEnabled) {
             this.checkEnabled = checkEnabled;
             this.customized = true;
+            this.revision.incrementAndGet();
         }
 
         public List<String> getServletPathWhitelist() {
@@ -85,6 +198,7 @@ public class ArgumentHandlerProperties {
         public void setServletPathWhitelist(List<String> servletPathWhitelist) {
             this.servletPathWhitelist = servletPathWhitelist;
             this.customized = true;
+            this.revision.incrementAndGet();
         }
 
         public String[] getXssRegexList() {
@@ -93,7 +207,13 @@ public class ArgumentHandlerProperties {
 
         public void setXssRegexList(String[] xssRegexList) {
             this.xssRegexList = xssRegexList;
+            this.xssMatcher = XSSMatcher.compile(xssRegexList);
             this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public XSSMatcher getXssMatcher() {
+            return xssMatcher;
         }
 
         public boolean hasBeenCustomized() {
@@ -102,10 +222,21 @@ public class ArgumentHandlerProperties {
     }
 
     public static class SQLInject {
+        private final AtomicLong revision;
         private boolean checkEnabled = false;
         private boolean customized = false;
         private List<String> servletPathWhitelist = new ArrayList<>();
         private String[] sqlKeywordList = new String[] {"and ","exec ","insert ","select ","delete ","update ","drop ","count ","chr ","mid ","master ","truncate ","char ","declare ",";|or ","+|user()"};
+        // 由关键词列表编译的多模式匹配器，关键词列表变更时重新编译
+        private volatile SQLKeywordMatcher sqlKeywordMatcher = SQLKeywordMatcher.compile(sqlKeywordList);
+
+        public SQLInject() {
+            this(new AtomicLong());
+        }
+
+        SQLInject(AtomicLong revision) {
+            this.revision = revision;
+        }
 
         public boolean isCheckEnabled() {
             return checkEnabled;
@@ -113,6 +244,7 @@ public class ArgumentHandlerProperties {
 
         public void setCheckEnabled(boolean checkEnabled) {
             this.checkEnabled = checkEnabled;
+            this.revision.incrementAndGet();
         }
 
         public List<String> getServletPathWhitelist() {
@@ -122,6 +254,7 @@ public class ArgumentHandlerProperties {
         public void setServletPathWhitelist(List<String> servletPathWhitelist) {
             this.servletPathWhitelist = servletPathWhitelist;
             this.customized = true;
+            this.revision.incrementAndGet();
         }
 
         public String[] getSqlKeywordList() {
@@ -130,7 +263,13 @@ public class ArgumentHandlerProperties {
 
         public void setSqlKeywordList(String[] sqlKeywordList) {
             this.sqlKeywordList = sqlKeywordList;
+            this.sqlKeywordMatcher = SQLKeywordMatcher.compile(sqlKeywordList);
             this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public SQLKeywordMatcher getSqlKeywordMatcher() {
+            return sqlKeywordMatcher;
         }
 
         public boolean hasBeenCustomized() {
@@ -139,12 +278,45 @@ public class ArgumentHandlerProperties {
     }
 
     public static class Files {
+        private final AtomicLong revision;
         private boolean checkEnabled = false;
+        // 检测文件类型时最多读取的文件头字节数，不大于0时与Tika类型库的检测长度一致（64KB）
+        private int sniffLength = 0;
+        // 多个文件是否并行检查
+        private boolean parallelEnabled = false;
+        // 并行检查文件时单个请求最多同时检查的文件数
+        private int parallelism = 4;
+        // 是否在解析multipart请求时流式检查文件
+        private boolean streamingEnabled = false;
+        // 是否缓存文件类型检测通过的结论
+        private boolean verdictCacheEnabled = false;
+        // 文件类型检测结论缓存的最大数量
+        private int verdictCacheSize = 1024;
+        // 文件类型检测结论缓存的有效期
+        private Duration verdictCacheTtl = Duration.ofMinutes(10);
+        // 是否检查压缩包（ZIP、TAR）中的文件
+        private boolean archiveInspectionEnabled = false;
+        // 压缩包中最多的文件数量
+        private int archiveMaxEntries = 1000;
+        // 压缩包最多的嵌套层数（包括最外层）
+        private int archiveMaxDepth = 3;
+        // 压缩包中文件的最大压缩比
+        private int archiveMaxCompressionRatio = 100;
+        // 文件类型检测使用的类型库
+        private MimeRepositoryMode mimeRepository = MimeRepositoryMode.FULL;
         private boolean customized = false;
         private List<String> servletPathWhitelist = new ArrayList<>();
         private String[] extensionBlacklist = new String[]{".bat,",".cmd,",".vbs,",".sh,",".java,",
                 ".class,",".js",".ts",".jsp",".html",".htm",".xhtml",".php",".py"};
 
+        public Files() {
+            this(new AtomicLong());
+        }
+
+        Files(AtomicLong revision) {
+            this.revision = revision;
+        }
+
         public boolean isCheckEnabled() {
             return checkEnabled;
         }
@@ -152,6 +324,7 @@ public class ArgumentHandlerProperties {
         public void setCheckEnabled(boolean checkEnabled) {
             this.checkEnabled = checkEnabled;
             this.customized = true;
+            this.revision.incrementAndGet();
         }
 
         public List<String> getServletPathWhitelist() {
@@ -161,6 +334,7 @@ public class ArgumentHandlerProperties {
         public void setServletPathWhitelist(List<String> servletPathWhitelist) {
             this.servletPathWhitelist = servletPathWhitelist;
             this.customized = true;
+            this.revision.incrementAndGet();
         }
 
         public String[] getExtensionBlacklist() {
@@ -170,6 +344,127 @@ public class ArgumentHandlerProperties {
         public void setExtensionBlacklist(String[] extensionBlacklist) {
             this.extensionBlacklist = StringUtils.appendDotIfNecessary(extensionBlacklist);
             this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getSniffLength() {
+            return sniffLength;
+        }
+
+        public void setSniffLength(int sniffLength) {
+            this.sniffLength = sniffLength;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public boolean isParallelEnabled() {
+            return parallelEnabled;
+        }
+
+        public void setParallelEnabled(boolean parallelEnabled) {
+            this.parallelEnabled = parallelEnabled;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public boolean isStreamingEnabled() {
+            return streamingEnabled;
+        }
+
+        public void setStreamingEnabled(boolean streamingEnabled) {
+            this.streamingEnabled = streamingEnabled;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public boolean isVerdictCacheEnabled() {
+            return verdictCacheEnabled;
+        }
+
+        public void setVerdictCacheEnabled(boolean verdictCacheEnabled) {
+            this.verdictCacheEnabled = verdictCacheEnabled;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getVerdictCacheSize() {
+            return verdictCacheSize;
+        }
+
+        public void setVerdictCacheSize(int verdictCacheSize) {
+            this.verdictCacheSize = verdictCacheSize;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public Duration getVerdictCacheTtl() {
+            return verdictCacheTtl;
+        }
+
+        public void setVerdictCacheTtl(Duration verdictCacheTtl) {
+            this.verdictCacheTtl = verdictCacheTtl;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public boolean isArchiveInspectionEnabled() {
+            return archiveInspectionEnabled;
+        }
+
+        public void setArchiveInspectionEnabled(boolean archiveInspectionEnabled) {
+            this.archiveInspectionEnabled = archiveInspectionEnabled;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getArchiveMaxEntries() {
+            return archiveMaxEntries;
+        }
+
+        public void setArchiveMaxEntries(int archiveMaxEntries) {
+            this.archiveMaxEntries = archiveMaxEntries;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getArchiveMaxDepth() {
+            return archiveMaxDepth;
+        }
+
+        public void setArchiveMaxDepth(int archiveMaxDepth) {
+            this.archiveMaxDepth = archiveMaxDepth;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public int getArchiveMaxCompressionRatio() {
+            return archiveMaxCompressionRatio;
+        }
+
+        public void setArchiveMaxCompressionRatio(int archiveMaxCompressionRatio) {
+            this.archiveMaxCompressionRatio = archiveMaxCompressionRatio;
+            this.customized = true;
+            this.revision.incrementAndGet();
+        }
+
+        public MimeRepositoryMode getMimeRepository() {
+            return mimeRepository;
+        }
+
+        public void setMimeRepository(MimeRepositoryMode mimeRepository) {
+            this.mimeRepository = mimeRepository;
+            this.customized = true;
+            this.revision.incrementAndGet();
         }
 
         public boolean hasBeenCustomized() {
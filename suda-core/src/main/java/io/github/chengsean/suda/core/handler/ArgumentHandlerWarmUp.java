@@ -0,0 +1,211 @@
+package io.github.chengsean.suda.core.handler;
+
+import io.github.chengsean.suda.core.tika.TikaWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 参数检查的预热：在后台线程中用内置的样本反复执行字符串检查和文件类型检测，
+ * 提前完成类加载、规则编译和JIT编译，避免发布后的第一批请求变慢。
+ * 样本不包含SQL关键词，不会触发告警日志；检测结论仍会计入预过滤、检测结论缓存等统计
+ * @author chengshaozhuang
+ */
+public final class ArgumentHandlerWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArgumentHandlerWarmUp.class);
+
+    /**
+     * 预热请求的接口路径
+     */
+    private static final String SERVLET_PATH = "/suda-warm-up";
+    private static final String[] STRINGS = {
+            "hello world", "  trimmed value  ", "user@example.com", "O'Reilly", "50% off", "a=b&c=d",
+            "2026-01-01T08:00:00Z", "{\"name\":\"suda\",\"tags\":[\"a\",\"b\"]}", "参数安全检查",
+            "<b>bold</b>", "<img src=x onerror=alert(1)>", "<script>alert('xss')</script>", "1 < 2 > 0"};
+    private static final Map<String, byte[]> FILES = new LinkedHashMap<>();
+
+    static {
+        FILES.put("warm-up.pdf", "%PDF-1.7\n%âãÏÓ\n1 0 obj\n".getBytes(StandardCharsets.ISO_8859_1));
+        FILES.put("warm-up.png", bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0x00, 0x00, 0x00, 0x0D, 'I', 'H', 'D', 'R'));
+        FILES.put("warm-up.jpg", bytes(0xFF, 0xD8, 0xFF, 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00));
+        FILES.put("warm-up.gif", "GIF89a\u0001\u0000\u0001\u0000".getBytes(StandardCharsets.ISO_8859_1));
+        FILES.put("warm-up.txt", "suda warm-up\n".getBytes(StandardCharsets.UTF_8));
+        FILES.put("warm-up.csv", "id,name\n1,suda\n".getBytes(StandardCharsets.UTF_8));
+        FILES.put("warm-up.json", "{\"name\":\"suda\"}".getBytes(StandardCharsets.UTF_8));
+        // 篡改了扩展名的文件，预热检测不通过的路径
+        FILES.put("tampered.png", FILES.get("warm-up.pdf"));
+    }
+
+    private final List<MethodArgumentHandler> handlers;
+    private final int iterations;
+    private volatile CompletableFuture<Void> future;
+
+    public ArgumentHandlerWarmUp(Collection<? extends MethodArgumentHandler> handlers, int iterations) {
+        this.handlers = new ArrayList<>(handlers);
+        this.iterations = Math.max(iterations, 1);
+    }
+
+    /**
+     * 在后台线程中开始预热，只会开始一次
+     * @author chengshaozhuang
+     * @return java.util.concurrent.CompletableFuture
+     */
+    public synchronized CompletableFuture<Void> start() {
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+                started.complete(null);
+            } catch (Throwable e) {
+                logger.warn("Warm-up of argument handlers failed: {}", e.getMessage());
+                started.completeExceptionally(e);
+            }
+        }, "suda-warm-up");
+        thread.setDaemon(true);
+        this.future = started;
+        thread.start();
+        return started;
+    }
+
+    /**
+     * 等待预热完成，未开始时先开始
+     * @author chengshaozhuang
+     * @param timeout 最长等待时间
+     * @return boolean 是否在等待时间内完成
+     */
+    public boolean await(Duration timeout) throws InterruptedException {
+        try {
+            start().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // 预热失败不影响启动，失败原因已记录
+            return true;
+        }
+    }
+
+    public boolean isFinished() {
+        CompletableFuture<Void> future = this.future;
+        return future != null && future.isDone();
+    }
+
+    /**
+     * 在当前线程中执行预热
+     * @author chengshaozhuang
+     */
+    public void run() {
+        long start = System.nanoTime();
+        HttpServletRequest request = syntheticRequest();
+        for (int i = 0; i < iterations && !Thread.currentThread().isInterrupted(); i++) {
+            for (MethodArgumentHandler handler : handlers) {
+                if (handler instanceof FileMethodArgumentHandler) {
+                    warmUpFiles(((FileMethodArgumentHandler) handler).getTikaWrapper());
+                } else {
+                    warmUpStrings(handler, request);
+                }
+            }
+        }
+        logger.info("Warm-up of argument handlers finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void warmUpStrings(MethodArgumentHandler handler, HttpServletRequest request) {
+        Map<String, Object> map = new HashMap<>();
+        for (String value : STRINGS) {
+            check(handler, value, request);
+            map.put(value, value);
+        }
+        check(handler, STRINGS.clone(), request);
+        check(handler, map, request);
+    }
+
+    private static void check(MethodArgumentHandler handler, Object arg, HttpServletRequest request) {
+        try {
+            handler.securityChecks(arg, request, null);
+        } catch (RuntimeException e) {
+            logger.debug("Warm-up sample rejected: {}", e.getMessage());
+        }
+    }
+
+    private static void warmUpFiles(TikaWrapper tikaWrapper) {
+        for (Map.Entry<String, byte[]> entry : FILES.entrySet()) {
+            try {
+                tikaWrapper.checkFileType(entry.getKey(), new ByteArrayResource(entry.getValue()));
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Warm-up sample '{}' rejected: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 只支持接口路径和请求属性的请求，用于计算参数检查策略
+     */
+    private static HttpServletRequest syntheticRequest() {
+        Map<String, Object> attributes = new HashMap<>();
+        return (HttpServletRequest) Proxy.newProxyInstance(ArgumentHandlerWarmUp.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getServletPath":
+                case "getRequestURI":
+                    return SERVLET_PATH;
+                case "getAttribute":
+                    return attributes.get((String) args[0]);
+                case "setAttribute":
+                    attributes.put((String) args[0], args[1]);
+                    return null;
+                case "removeAttribute":
+                    attributes.remove((String) args[0]);
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Warm-up request " + SERVLET_PATH;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.chengsean.suda.core.handler;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.Part;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法参数的形态。参数的类型信息不会改变，由使用方按{@link MethodParameter}计算一次并缓存
+ * （如{@code io.github.chengsean.suda.core.resolver.ArgumentInspectionPlan}），避免每次请求都解析{@link ResolvableType}和泛型
+ * @author chengshaozhuang
+ */
+public enum ArgumentShape {
+
+    /**
+     * 单个{@link MultipartFile}
+     */
+    MULTIPART_FILE,
+    /**
+     * {@link MultipartFile}的集合
+     */
+    MULTIPART_FILE_COLLECTION,
+    /**
+     * {@link MultipartFile}数组
+     */
+    MULTIPART_FILE_ARRAY,
+    /**
+     * 单个{@link Part}
+     */
+    PART,
+    /**
+     * {@link Part}的集合
+     */
+    PART_COLLECTION,
+    /**
+     * {@link Part}数组
+     */
+    PART_ARRAY,
+    /**
+     * 值为文件类型的{@link MultiValueMap}
+     */
+    MULTIPART_MULTI_VALUE_MAP,
+    /**
+     * 值为文件类型的{@link Map}
+     */
+    MULTIPART_MAP,
+    /**
+     * 值为其他类型（如字符串）的{@link MultiValueMap}
+     */
+    MULTI_VALUE_MAP,
+    /**
+     * 值为其他类型（如字符串）的{@link Map}
+     */
+    MAP,
+    /**
+     * 其他类型
+     */
+    OTHER;
+
+    /**
+     * 计算方法参数的形态，每次调用都会解析参数类型，不缓存
+     * @author chengshaozhuang
+     * @param parameter 方法参数
+     * @return io.github.chengsean.suda.core.handler.ArgumentShape
+     */
+    public static ArgumentShape of(MethodParameter parameter) {
+        return resolve(parameter);
+    }
+
+    /**
+     * 按参数值的类型判断形态，用于没有方法参数信息的情况
+     * @author chengshaozhuang
+     * @param arg 参数值
+     * @return io.github.chengsean.suda.core.handler.ArgumentShape
+     */
+    public static ArgumentShape ofValue(Object arg) {
+        if (arg instanceof MultipartFile) {
+            return MULTIPART_FILE;
+        }
+        if (arg instanceof Part) {
+            return PART;
+        }
+        if (arg instanceof MultiValueMap) {
+            return MULTI_VALUE_MAP;
+        }
+        if (arg instanceof Map) {
+            return MAP;
+        }
+        return OTHER;
+    }
+
+    /**
+     * 是否文件类型，或值为文件类型的{@link Map}
+     * @author chengshaozhuang
+     * @return boolean
+     */
+    public boolean isMultipart() {
+        return this != MULTI_VALUE_MAP && this != MAP && this != OTHER;
+    }
+
+    private static ArgumentShape resolve(MethodParameter parameter) {
+        Class<?> paramType = parameter.getNestedParameterType();
+        if (MultipartFile.class == paramType) {
+            return MULTIPART_FILE;
+        }
+        if (Part.class == paramType) {
+            return PART;
+        }
+        Class<?> componentType = paramType.getComponentType();
+        if (MultipartFile.class == componentType) {
+            return MULTIPART_FILE_ARRAY;
+        }
+        if (Part.class == componentType) {
+            return PART_ARRAY;
+        }
+        if (Collection.class == paramType || List.class.isAssignableFrom(paramType)) {
+            Class<?> elementType = ResolvableType.forMethodParameter(parameter).asCollection().resolveGeneric();
+            if (MultipartFile.class == elementType) {
+                return MULTIPART_FILE_COLLECTION;
+            }
+            if (Part.class == elementType) {
+                return PART_COLLECTION;
+            }
+        }
+        Class<?> parameterType = parameter.getParameterType();
+        if (MultiValueMap.class.isAssignableFrom(parameterType)) {
+            Class<?> valueType = ResolvableType.forMethodParameter(parameter).as(MultiValueMap.class).getGeneric(1).resolve();
+            return isFileType(valueType) ? MULTIPART_MULTI_VALUE_MAP : MULTI_VALUE_MAP;
+        }
+        if (Map.class.isAssignableFrom(parameterType)) {
+            Class<?> valueType = ResolvableType.forMethodParameter(parameter).asMap().getGeneric(1).resolve();
+            return isFileType(valueType) ? MULTIPART_MAP : MAP;
+        }
+        return OTHER;
+    }
+
+    private static boolean isFileType(Class<?> type) {
+        return MultipartFile.class == type || Part.class == type;
+    }
+}
@@ -2,30 +2,51 @@ package io.github.chengsean.suda.core.handler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.util.MultiValueMap;
 import org.springframework.core.MethodParameter;
-import org.springframework.core.ResolvableType;
 import org.springframework.lang.Nullable;
 import org.springframework.web.multipart.MultipartFile;
-import io.github.chengsean.suda.core.util.ServletRequestUtils;
 import io.github.chengsean.suda.core.tika.TikaWrapper;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.Part;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 文件类型参数安全检查
  * @author chengshaozhuang
  */
-public class FileMethodArgumentHandler implements MethodArgumentHandler {
+public class FileMethodArgumentHandler implements MethodArgumentHandler, DisposableBean {
+
+    /**
+     * 请求中已经检查通过的文件（{@link Part}或{@link MultipartFile}，按对象标识，{@link Set}）。
+     * 请求包装类和参数解析器共用，同一个文件在请求期间只检查一次；检查不通过的文件不记录，再次访问时重新检查
+     */
+    public static final String INSPECTED_FILES_ATTRIBUTE =
+            FileMethodArgumentHandler.class.getName() + ".INSPECTED_FILES";
+
     protected final Logger logger = LoggerFactory.getLogger(FileMethodArgumentHandler.class);
     private final ArgumentHandlerProperties properties;
     private final TikaWrapper tikaWrapper;
+    /**
+     * 并行检查文件，首次并行检查时创建，并行数变更后重建
+     */
+    private volatile ParallelFileInspector parallelFileInspector;
+    /**
+     * 方法参数的形态，随实例（应用上下文）一起回收，不会在重启后持有旧的类加载器
+     */
+    private final ConcurrentMap<MethodParameter, ArgumentShape> shapes = new ConcurrentHashMap<>(256);
 
     public FileMethodArgumentHandler(ArgumentHandlerProperties properties, TikaWrapper tikaWrapper) {
         this.properties = properties;
@@ -39,66 +60,119 @@ public class FileMethodArgumentHandler implements MethodArgumentHandler {
         return securityChecks0(arg, Objects.requireNonNull(request, message), parameter);
     }
 
-    @SuppressWarnings({"unchecked","rawtypes"})
     private Object securityChecks0(@Nullable Object arg, HttpServletRequest request, @Nullable MethodParameter parameter) {
         if (arg == null) {
             return null;
         }
-        String servletPath = ServletRequestUtils.getServletPath(request);
-        if (!fileSecurityChecksEnabled(servletPath)) {
+        if (!ArgumentHandlerPolicy.resolve(request, properties).isFilesCheck()) {
             return arg;
         }
-        if (arg instanceof MultipartFile) {
-            checkFileType((MultipartFile) arg);
-        }
-        else if (isMultipartFileCollection(parameter, arg)) {
-            Collection<MultipartFile> files = (Collection<MultipartFile>) arg;
-            checkFileType(files.toArray(new MultipartFile[0]));
-        }
-        else if (isMultipartFileArray(parameter, arg)) {
-            checkFileType((MultipartFile[]) arg);
-        }
-        else if (arg instanceof Part) {
-            checkFileType((Part) arg);
-        }
-        else if (isPartCollection(parameter, arg)) {
-            Collection<Part> parts = (Collection<Part>) arg;
-            checkFileType(parts.toArray(new Part[0]));
-        }
-        else if (isPartArray(parameter, arg)) {
-            checkFileType((Part[]) arg);
-        }
-        else if (isMultiValueMap(parameter, arg)) {
-            ((MultiValueMap)arg).values().forEach(object -> checkFileType(((List<Object>) object).toArray()));
-        }
-        else if (isMap(parameter, arg)) {
-            checkFileType(((Map)arg).values().toArray());
+        ArgumentShape shape = parameter != null ? getShape(parameter) : ArgumentShape.OTHER;
+        if (shape == ArgumentShape.OTHER) {
+            shape = ArgumentShape.ofValue(arg);
+        }
+        switch (shape) {
+            case MULTIPART_FILE:
+            case PART:
+                checkFileType(inspectedFiles(request), arg);
+                break;
+            case MULTIPART_FILE_COLLECTION:
+            case PART_COLLECTION:
+                checkFileTypes(inspectedFiles(request), ((Collection<?>) arg).toArray());
+                break;
+            case MULTIPART_FILE_ARRAY:
+            case PART_ARRAY:
+                checkFileTypes(inspectedFiles(request), (Object[]) arg);
+                break;
+            case MULTIPART_MULTI_VALUE_MAP:
+            case MULTI_VALUE_MAP:
+                List<Object> values = new ArrayList<>();
+                ((MultiValueMap<?, ?>) arg).values().forEach(values::addAll);
+                checkFileTypes(inspectedFiles(request), values.toArray());
+                break;
+            case MULTIPART_MAP:
+            case MAP:
+                checkFileTypes(inspectedFiles(request), ((Map<?, ?>) arg).values().toArray());
+                break;
+            default:
+                break;
         }
         return arg;
     }
 
-    private boolean isMap(MethodParameter parameter, Object arg) {
-        if (parameter != null) {
-            return Map.class.isAssignableFrom(parameter.getParameterType());
+    /**
+     * 获取请求中已经检查通过的文件，首次使用时创建。并行检查时会在多个线程中记录，所以是同步的；
+     * 其他已经完成同样检查的地方（如流式解析multipart请求）也可以记录到其中
+     * @author chengshaozhuang
+     * @param request 当前请求
+     * @return java.util.Set
+     */
+    @SuppressWarnings("unchecked")
+    public static Set<Object> inspectedFiles(HttpServletRequest request) {
+        Object inspected = request.getAttribute(INSPECTED_FILES_ATTRIBUTE);
+        if (inspected instanceof Set) {
+            return (Set<Object>) inspected;
+        }
+        Set<Object> files = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        request.setAttribute(INSPECTED_FILES_ATTRIBUTE, files);
+        return files;
+    }
+
+    /**
+     * 检查多个文件，启用并行检查时并行检查
+     * @author chengshaozhuang
+     * @param inspected 请求中已经检查通过的文件
+     * @param objects 文件
+     */
+    private void checkFileTypes(Set<Object> inspected, Object[] objects) {
+        ArgumentHandlerProperties.Files files = properties.getFiles();
+        if (files.isParallelEnabled() && objects.length > 1 && files.getParallelism() > 1) {
+            parallelFileInspector().inspect(objects, files.getParallelism(), object -> checkFileType(inspected, object));
+        } else {
+            checkFileType(inspected, objects);
         }
-        return Map.class.isAssignableFrom(arg.getClass());
     }
 
-    private boolean isMultiValueMap(MethodParameter parameter, Object arg) {
-        if (parameter != null) {
-            return MultiValueMap.class.isAssignableFrom(parameter.getParameterType());
+    /**
+     * 获取并行检查文件的实例，首次使用时创建；并行数（parallelism）变更后按新的并行数重建，旧的实例在正在进行的检查完成后关闭
+     * @author chengshaozhuang
+     * @return io.github.chengsean.suda.core.handler.ParallelFileInspector
+     */
+    private ParallelFileInspector parallelFileInspector() {
+        int parallelism = Math.max(properties.getFiles().getParallelism(), 1);
+        ParallelFileInspector inspector = this.parallelFileInspector;
+        if (inspector == null || inspector.getPoolSize() != parallelism) {
+            synchronized (this) {
+                inspector = this.parallelFileInspector;
+                if (inspector == null || inspector.getPoolSize() != parallelism) {
+                    ParallelFileInspector retired = inspector;
+                    inspector = new ParallelFileInspector(parallelism);
+                    this.parallelFileInspector = inspector;
+                    if (retired != null) {
+                        retired.retire();
+                    }
+                }
+            }
         }
-        return MultiValueMap.class.isAssignableFrom(arg.getClass());
+        return inspector;
     }
 
-    private void checkFileType(Object... objects) {
+    /**
+     * 检查文件，跳过请求中已经检查通过的文件，检查通过后记录
+     */
+    private void checkFileType(Set<Object> inspected, Object... objects) {
         for (Object object : objects) {
+            if (object == null || inspected.contains(object)) {
+                continue;
+            }
             if (object instanceof MultipartFile) {
                 checkFileType((MultipartFile) object);
-            }
-            if (object instanceof Part) {
+            } else if (object instanceof Part) {
                 checkFileType((Part) object);
+            } else {
+                continue;
             }
+            inspected.add(object);
         }
     }
 
@@ -110,7 +184,7 @@ public class FileMethodArgumentHandler implements MethodArgumentHandler {
             String filename = part.getSubmittedFileName();
             try {
                 // 文件安全检查
-                tikaWrapper.checkFileType(filename, part.getInputStream());
+                tikaWrapper.checkFileType(filename, part::getInputStream);
             } catch (IOException e) {
                 if (logger.isWarnEnabled()) {
                     logger.warn("Can not Read file '{}' error: {}", filename, e.getMessage());
@@ -125,7 +199,7 @@ public class FileMethodArgumentHandler implements MethodArgumentHandler {
                 continue;
             }
             try {
-                tikaWrapper.checkFileType(file.getOriginalFilename(), file.getInputStream());
+                tikaWrapper.checkFileType(file.getOriginalFilename(), file);
             } catch (IOException e) {
                 e.printStackTrace();
                 if (logger.isWarnEnabled()) {
@@ -135,50 +209,36 @@ public class FileMethodArgumentHandler implements MethodArgumentHandler {
         }
     }
 
-    private boolean fileSecurityChecksEnabled(String servletPath) {
-        List<String> servletPathWhitelist = properties.getFiles().getServletPathWhitelist();
-        boolean fileCheckEnabled = properties.getFiles().isCheckEnabled();
-        return fileCheckEnabled && ServletRequestUtils.isNotOnWhitelist(servletPathWhitelist, servletPath);
-    }
-
-    private boolean isMultipartFileCollection(MethodParameter methodParam, Object arg) {
-        if (methodParam != null) {
-            return MultipartFile.class == getCollectionParameterType(methodParam);
-        }
-        return MultipartFile.class.isAssignableFrom(arg.getClass());
-    }
-
-    private boolean isMultipartFileArray(MethodParameter methodParam, Object arg) {
-        if (methodParam != null) {
-            return (MultipartFile.class == methodParam.getNestedParameterType().getComponentType());
+    private ArgumentShape getShape(MethodParameter parameter) {
+        ArgumentShape shape = shapes.get(parameter);
+        if (shape == null) {
+            shape = shapes.computeIfAbsent(parameter, ArgumentShape::of);
         }
-        return MultipartFile.class.isAssignableFrom(arg.getClass());
+        return shape;
     }
 
-    private boolean isPartCollection(MethodParameter methodParam, Object arg) {
-        if (methodParam != null) {
-            return (Part.class == getCollectionParameterType(methodParam));
-        }
-        return Part.class.isAssignableFrom(arg.getClass());
-    }
-
-    private boolean isPartArray(MethodParameter methodParam, Object arg) {
-        if (methodParam != null) {
-            return (Part.class == methodParam.getNestedParameterType().getComponentType());
-        }
-        return Part.class.isAssignableFrom(arg.getClass());
+    @Override
+    public void preHandle(HttpServletRequest request) {
+        ArgumentHandlerPolicy.resolve(request, properties);
     }
 
-    @Nullable
-    private Class<?> getCollectionParameterType(MethodParameter methodParam) {
-        Class<?> paramType = methodParam.getNestedParameterType();
-        if (Collection.class == paramType || List.class.isAssignableFrom(paramType)){
-            return ResolvableType.forMethodParameter(methodParam).asCollection().resolveGeneric();
+    /**
+     * 关闭并行检查文件的线程
+     * @author chengshaozhuang
+     */
+    @Override
+    public void destroy() {
+        ParallelFileInspector inspector = this.parallelFileInspector;
+        if (inspector != null) {
+            inspector.shutdown();
         }
-        return null;
     }
 
     public ArgumentHandlerProperties getProperties() {
         return properties;
     }
+
+    public TikaWrapper getTikaWrapper() {
+        return tikaWrapper;
+    }
 }
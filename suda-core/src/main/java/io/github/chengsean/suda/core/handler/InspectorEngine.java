@@ -0,0 +1,21 @@
+package io.github.chengsean.suda.core.handler;
+
+import io.github.chengsean.suda.core.matcher.FusedStringInspector;
+
+/**
+ * 字符串检查引擎
+ * @author chengshaozhuang
+ */
+public enum InspectorEngine {
+
+    /**
+     * 依次进行SQL关键词检查、XSS检查和去空格，子类可重写{@link StringMethodArgumentHandler#checkSQLInjection(String)}
+     * 和{@link StringMethodArgumentHandler#checkXSSInjection(String)}
+     */
+    STANDARD,
+
+    /**
+     * 单次扫描完成所有检查，见{@link FusedStringInspector}，不会调用上述可重写的方法
+     */
+    FUSED
+}
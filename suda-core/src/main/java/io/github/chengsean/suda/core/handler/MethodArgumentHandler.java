@@ -13,4 +13,12 @@ public interface MethodArgumentHandler {
 
     @Nullable
     Object securityChecks(@Nullable Object arg, HttpServletRequest request, @Nullable MethodParameter parameter);
+
+    /**
+     * 请求进入时的预处理，如计算请求的参数检查策略（见{@link ArgumentHandlerPolicy}）
+     * @author chengshaozhuang
+     * @param request 请求
+     */
+    default void preHandle(HttpServletRequest request) {
+    }
 }
@@ -0,0 +1,197 @@
+package io.github.chengsean.suda.core.handler;
+
+import io.github.chengsean.suda.core.exception.ObjectGraphLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * 对象图字符串检查，按{@link SanitizationPlan}遍历对象的嵌套属性、集合、{@link Map}的值以及数组，
+ * 不包含字符串的类型整体跳过。以对象标识检测循环引用，并限制遍历的深度和对象数量，避免超大的入参耗尽CPU，
+ * 超出限制时拒绝入参（抛出{@link ObjectGraphLimitExceededException}），避免超出限制的部分未经检查。
+ * 不可修改的集合、{@link Map}仍检查所有元素，只是不写回检查后的值。每次遍历创建一个实例，非线程安全。
+ * @author chengshaozhuang
+ */
+public class ObjectGraphSanitizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObjectGraphSanitizer.class);
+
+    private final UnaryOperator<String> sanitizer;
+    private final int maxDepth;
+    private final int maxNodes;
+    private Object root;
+    private Set<Object> visited;
+    private int nodes;
+
+    /**
+     * Class constructor.
+     * @param sanitizer 字符串检查方法，抛出的异常会原样抛出
+     * @param maxDepth 最大遍历深度，根对象的深度为0
+     * @param maxNodes 最多遍历的对象（包括集合、数组）数量
+     */
+    public ObjectGraphSanitizer(UnaryOperator<String> sanitizer, int maxDepth, int maxNodes) {
+        this.sanitizer = sanitizer;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * 检查对象图中的所有字符串，并写回检查后的值
+     * @author chengshaozhuang
+     * @param root 根对象
+     * @return java.lang.Object 根对象
+     * @throws ObjectGraphLimitExceededException 对象图超出遍历的深度或对象数量限制
+     */
+    public Object sanitize(Object root) {
+        this.root = root;
+        visit(root, 0);
+        return root;
+    }
+
+    private void visit(Object node, int depth) {
+        SanitizationPlan plan = SanitizationPlan.of(node.getClass());
+        if (plan.isStringFree() || !enter(node, depth)) {
+            return;
+        }
+        switch (plan.getKind()) {
+            case BEAN:
+                plan.apply(node, sanitizer);
+                plan.forEachNested(node, value -> visitValue(value, depth + 1));
+                break;
+            case COLLECTION:
+                sanitizeCollection((Collection<?>) node, depth);
+                break;
+            case MAP:
+                sanitizeMap((Map<?, ?>) node, depth);
+                break;
+            case ARRAY:
+                sanitizeArray((Object[]) node, depth);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void visitValue(Object value, int depth) {
+        if (!(value instanceof String)) {
+            visit(value, depth);
+        }
+    }
+
+    private boolean enter(Object node, int depth) {
+        if (depth > 0) {
+            // 只有存在嵌套对象时才需要检测循环引用
+            if (visited == null) {
+                visited = Collections.newSetFromMap(new IdentityHashMap<>());
+                visited.add(root);
+            }
+            if (!visited.add(node)) {
+                return false;
+            }
+        }
+        if (depth > maxDepth || nodes >= maxNodes) {
+            throw new ObjectGraphLimitExceededException(String.format("The object graph of '%s' exceeds the limits " +
+                    "(depth: %d, nodes: %d)", root.getClass().getName(), maxDepth, maxNodes));
+        }
+        nodes++;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sanitizeCollection(Collection<?> collection, int depth) {
+        if (collection instanceof List) {
+            boolean writable = true;
+            ListIterator<Object> iterator = ((List<Object>) collection).listIterator();
+            while (iterator.hasNext()) {
+                Object value = iterator.next();
+                if (value instanceof String) {
+                    String sanitized = sanitizer.apply((String) value);
+                    if (sanitized != value && writable) {
+                        writable = write(collection, () -> iterator.set(sanitized));
+                    }
+                } else if (value != null) {
+                    visit(value, depth + 1);
+                }
+            }
+            return;
+        }
+        // Set等无法按位置替换的集合，先收集需要替换的元素
+        List<Object> removed = new ArrayList<>();
+        List<Object> added = new ArrayList<>();
+        for (Object value : collection) {
+            if (value instanceof String) {
+                String sanitized = sanitizer.apply((String) value);
+                if (sanitized != value) {
+                    removed.add(value);
+                    added.add(sanitized);
+                }
+            } else if (value != null) {
+                visit(value, depth + 1);
+            }
+        }
+        if (!removed.isEmpty()) {
+            write(collection, () -> {
+                collection.removeAll(removed);
+                ((Collection<Object>) collection).addAll(added);
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sanitizeMap(Map<?, ?> map, int depth) {
+        boolean writable = true;
+        for (Map.Entry<?, Object> entry : ((Map<?, Object>) map).entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                String sanitized = sanitizer.apply((String) value);
+                if (sanitized != value && writable) {
+                    writable = write(map, () -> entry.setValue(sanitized));
+                }
+            } else if (value != null) {
+                visit(value, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * 写回检查后的值，容器不可修改时只记录日志，其余元素仍继续检查
+     * @author chengshaozhuang
+     * @param container 集合或者Map
+     * @param write 写回操作
+     * @return boolean 容器是否可以修改
+     */
+    private static boolean write(Object container, Runnable write) {
+        try {
+            write.run();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            logger.warn("The '{}' cannot be modified, the sanitized values are not written back.",
+                    container.getClass().getName());
+            return false;
+        }
+    }
+
+    private void sanitizeArray(Object[] array, int depth) {
+        boolean stringArray = array.getClass().getComponentType().isAssignableFrom(String.class);
+        for (int i = 0; i < array.length; i++) {
+            Object value = array[i];
+            if (value instanceof String) {
+                String sanitized = sanitizer.apply((String) value);
+                if (sanitized != value && stringArray) {
+                    array[i] = sanitized;
+                }
+            } else if (value != null) {
+                visit(value, depth + 1);
+            }
+        }
+    }
+}
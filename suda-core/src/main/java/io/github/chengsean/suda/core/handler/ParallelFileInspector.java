@@ -0,0 +1,134 @@
+package io.github.chengsean.suda.core.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 并行检查多个文件。每个请求最多启动{@code parallelism}个任务（包括当前线程）按顺序依次领取文件，
+ * 文件检查失败后不再领取位于其后的文件，但位于其前、已领取的文件仍会检查完成，最终抛出位置最靠前的失败文件的异常，
+ * 与逐个检查时的异常一致。运行在Java 21及以上版本时使用虚拟线程，否则使用有界的线程池，
+ * 线程池繁忙或者已关闭时由当前线程执行。线程池的大小在创建时确定，见{@link #getPoolSize()}
+ * @author chengshaozhuang
+ */
+final class ParallelFileInspector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelFileInspector.class);
+
+    private final int poolSize;
+    private final ExecutorService executor;
+
+    ParallelFileInspector(int poolSize) {
+        this.poolSize = Math.max(poolSize, 1);
+        this.executor = createExecutor(this.poolSize);
+    }
+
+    private static ExecutorService createExecutor(int poolSize) {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor()，Java 21及以上版本可用
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Virtual threads are unavailable, files will be checked on a bounded thread pool.");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 16), runnable -> {
+            Thread thread = new Thread(runnable, "suda-file-inspector-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 并行检查文件
+     * @author chengshaozhuang
+     * @param files 文件
+     * @param parallelism 最多同时检查的文件数
+     * @param inspector 单个文件的检查
+     */
+    void inspect(Object[] files, int parallelism, Consumer<Object> inspector) {
+        AtomicInteger next = new AtomicInteger();
+        // 失败文件的最小位置，及各位置的异常
+        AtomicInteger failedIndex = new AtomicInteger(Integer.MAX_VALUE);
+        RuntimeException[] failures = new RuntimeException[files.length];
+        Runnable worker = () -> {
+            int index;
+            // 按顺序领取，领取到的位置在已失败的文件之后时停止
+            while ((index = next.getAndIncrement()) < files.length && index < failedIndex.get()) {
+                try {
+                    inspector.accept(files[index]);
+                } catch (RuntimeException e) {
+                    failures[index] = e;
+                    failedIndex.accumulateAndGet(index, Math::min);
+                }
+            }
+        };
+        int workers = Math.min(Math.max(parallelism, 1), files.length) - 1;
+        List<Future<?>> futures = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(worker));
+            }
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭（如配置变更后被替换），其余的文件由当前线程检查
+            logger.debug("The file inspector has been shut down, the remaining files are checked in the current thread.");
+        }
+        // 当前线程同样参与检查
+        worker.run();
+        awaitAll(futures);
+        int index = failedIndex.get();
+        if (index != Integer.MAX_VALUE) {
+            throw failures[index];
+        }
+    }
+
+    /**
+     * 等待所有任务完成，已领取的文件都会检查完成，不取消任务
+     */
+    private static void awaitAll(List<Future<?>> futures) {
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.subList(i, futures.size()).forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Interrupted while checking files", e);
+            } catch (CancellationException | ExecutionException e) {
+                throw new IllegalStateException("Failed to check files", e);
+            }
+        }
+    }
+
+    int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * 不再接受新的检查，正在进行的检查继续完成
+     * @author chengshaozhuang
+     */
+    void retire() {
+        executor.shutdown();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
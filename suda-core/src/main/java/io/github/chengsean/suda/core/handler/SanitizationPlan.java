@@ -0,0 +1,260 @@
+package io.github.chengsean.suda.core.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 对象字符串属性的检查计划，按类型计算一次并缓存（{@link ClassValue}），不可变且线程安全。
+ * 计划中只保留可读写的字符串属性，并通过{@link MethodHandle}访问，避免每次请求都解析属性描述符和反射调用。
+ * 此外还记录类型的形态以及可能包含字符串的嵌套属性，供{@link ObjectGraphSanitizer}遍历对象图时使用。
+ * @author chengshaozhuang
+ */
+public final class SanitizationPlan {
+
+    private static final Logger logger = LoggerFactory.getLogger(SanitizationPlan.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final StringProperty[] NO_STRING_PROPERTIES = new StringProperty[0];
+    private static final NestedProperty[] NO_NESTED_PROPERTIES = new NestedProperty[0];
+
+    private static final ClassValue<SanitizationPlan> PLANS = new ClassValue<SanitizationPlan>() {
+        @Override
+        protected SanitizationPlan computeValue(Class<?> type) {
+            return new SanitizationPlan(type);
+        }
+    };
+
+    /**
+     * 类型形态
+     */
+    public enum Kind {
+        /**
+         * 不包含任何字符串的类型，如数值、日期、枚举、基本类型数组等，以及不需要遍历的JDK类型
+         */
+        STRING_FREE,
+        BEAN,
+        COLLECTION,
+        MAP,
+        ARRAY
+    }
+
+    private final Kind kind;
+    private final StringProperty[] properties;
+    private final NestedProperty[] nestedProperties;
+
+    private SanitizationPlan(Class<?> type) {
+        Kind kind = kindOf(type);
+        if (kind != Kind.BEAN) {
+            this.kind = kind;
+            this.properties = NO_STRING_PROPERTIES;
+            this.nestedProperties = NO_NESTED_PROPERTIES;
+            return;
+        }
+        List<StringProperty> properties = new ArrayList<>();
+        List<NestedProperty> nestedProperties = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(type)) {
+            Method readMethod = pd.getReadMethod();
+            Method writeMethod = pd.getWriteMethod();
+            if (readMethod == null) {
+                continue;
+            }
+            Class<?> propertyType = readMethod.getReturnType();
+            boolean stringProperty = writeMethod != null && propertyType.isAssignableFrom(String.class)
+                    && writeMethod.getParameterTypes()[0].isAssignableFrom(String.class);
+            if (!stringProperty && (propertyType == String.class || isStringFreeDeclaredType(propertyType))) {
+                continue;
+            }
+            try {
+                ReflectionUtils.makeAccessible(readMethod);
+                MethodHandle getter = lookup.unreflect(readMethod).asType(GETTER_TYPE);
+                if (stringProperty) {
+                    ReflectionUtils.makeAccessible(writeMethod);
+                    MethodHandle setter = lookup.unreflect(writeMethod).asType(SETTER_TYPE);
+                    properties.add(new StringProperty(pd.getName(), getter, setter, propertyType == String.class));
+                } else {
+                    nestedProperties.add(new NestedProperty(pd.getName(), getter));
+                }
+            } catch (IllegalAccessException | RuntimeException e) {
+                logger.warn("Opos!! The property '{}' of '{}' is not accessible and will not be checked.",
+                        pd.getName(), type.getName(), e);
+            }
+        }
+        this.properties = properties.toArray(NO_STRING_PROPERTIES);
+        this.nestedProperties = nestedProperties.toArray(NO_NESTED_PROPERTIES);
+        // 没有任何可能包含字符串的属性，整个类型都可以跳过
+        this.kind = this.properties.length == 0 && this.nestedProperties.length == 0 ? Kind.STRING_FREE : Kind.BEAN;
+    }
+
+    /**
+     * 获取类型对应的检查计划
+     * @author chengshaozhuang
+     * @param type 对象类型
+     * @return io.github.chengsean.suda.core.handler.SanitizationPlan
+     */
+    public static SanitizationPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * 对对象的每个字符串属性执行检查，并写回检查后的值（值未改变时不写回）
+     * @author chengshaozhuang
+     * @param bean 被检查的对象
+     * @param sanitizer 字符串检查方法，抛出的异常会原样抛出
+     */
+    public void apply(Object bean, UnaryOperator<String> sanitizer) {
+        for (StringProperty property : properties) {
+            Object value = property.get(bean);
+            if (value instanceof String) {
+                String sanitized = sanitizer.apply((String) value);
+                if (sanitized != value) {
+                    property.set(bean, sanitized);
+                }
+            }
+        }
+    }
+
+    /**
+     * 遍历对象中可能包含字符串的嵌套属性值，包括声明为{@link Object}等类型、但值不是字符串的属性
+     * @author chengshaozhuang
+     * @param bean 对象
+     * @param consumer 嵌套属性值（不为{@code null}）的处理方法
+     */
+    public void forEachNested(Object bean, Consumer<Object> consumer) {
+        for (StringProperty property : properties) {
+            if (property.declaredAsString) {
+                continue;
+            }
+            Object value = property.get(bean);
+            if (value != null && !(value instanceof String)) {
+                consumer.accept(value);
+            }
+        }
+        for (NestedProperty property : nestedProperties) {
+            Object value = property.get(bean);
+            if (value != null) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isStringFree() {
+        return kind == Kind.STRING_FREE;
+    }
+
+    public boolean isEmpty() {
+        return properties.length == 0;
+    }
+
+    private static Kind kindOf(Class<?> type) {
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? Kind.STRING_FREE : Kind.ARRAY;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return Kind.COLLECTION;
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return Kind.MAP;
+        }
+        // 其余JDK类型（如Optional、File、URI等）不作为普通对象遍历
+        return isValueType(type) || isJdkType(type) ? Kind.STRING_FREE : Kind.BEAN;
+    }
+
+    /**
+     * 属性的声明类型是否足以断定其值不包含字符串，{@link Object}等非final的JDK类型的值可能是任意对象
+     */
+    private static boolean isStringFreeDeclaredType(Class<?> type) {
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive();
+        }
+        return isValueType(type) || isJdkType(type) && Modifier.isFinal(type.getModifiers());
+    }
+
+    private static boolean isValueType(Class<?> type) {
+        return type.isPrimitive() || Enum.class.isAssignableFrom(type) || Number.class.isAssignableFrom(type)
+                || Boolean.class == type || Character.class == type || TemporalAccessor.class.isAssignableFrom(type)
+                || Date.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type) || UUID.class == type
+                || Class.class == type;
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+    private abstract static class Property {
+        final String name;
+        private final MethodHandle getter;
+
+        private Property(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        Object get(Object bean) {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (Throwable e) {
+                handleAccessFailure(bean, e);
+                return null;
+            }
+        }
+
+        void handleAccessFailure(Object bean, Throwable e) {
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            logger.warn("Opos!! Accessing the property '{}' of '{}' encountered an unexpected exception.",
+                    name, bean.getClass().getName(), e);
+        }
+    }
+
+    private static final class StringProperty extends Property {
+        private final MethodHandle setter;
+        private final boolean declaredAsString;
+
+        private StringProperty(String name, MethodHandle getter, MethodHandle setter, boolean declaredAsString) {
+            super(name, getter);
+            this.setter = setter;
+            this.declaredAsString = declaredAsString;
+        }
+
+        private void set(Object bean, String value) {
+            try {
+                setter.invokeExact(bean, (Object) value);
+            } catch (Throwable e) {
+                handleAccessFailure(bean, e);
+            }
+        }
+    }
+
+    private static final class NestedProperty extends Property {
+
+        private NestedProperty(String name, MethodHandle getter) {
+            super(name, getter);
+        }
+    }
+}
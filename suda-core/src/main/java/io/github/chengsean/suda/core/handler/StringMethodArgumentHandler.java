@@ -9,18 +9,20 @@ import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 import io.github.chengsean.suda.core.exception.SQLKeyboardDetectedException;
-import org.springframework.beans.BeanUtils;
+import io.github.chengsean.suda.core.matcher.CharClassPrefilter;
+import io.github.chengsean.suda.core.matcher.FusedStringInspector;
+import io.github.chengsean.suda.core.matcher.SQLKeywordMatcher;
+import io.github.chengsean.suda.core.matcher.XSSMatcher;
 import org.springframework.core.MethodParameter;
-import io.github.chengsean.suda.core.util.ServletRequestUtils;
 import io.github.chengsean.suda.core.util.StringEscapeUtils;
 
 import javax.servlet.http.HttpServletRequest;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
 /**
  * 方法字符串参数安全检查，通过重写这些方法来实现：{@link HandlerMethodArgumentResolver#resolveArgument(MethodParameter, ModelAndViewContainer, NativeWebRequest, WebDataBinderFactory)}
@@ -30,9 +32,28 @@ import java.util.Objects;
  */
 public class StringMethodArgumentHandler implements MethodArgumentHandler {
 
+    /**
+     * 请求中已经检查过的字符串（按对象标识，{@link Set}），如JSON请求体在反序列化时检查过的字符串。
+     * 检查参数对象时跳过这些字符串，只检查其余的字符串，避免重复检查和重复转义
+     */
+    public static final String SANITIZED_STRINGS_ATTRIBUTE =
+            StringMethodArgumentHandler.class.getName() + ".SANITIZED_STRINGS";
+
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final ArgumentHandlerProperties properties;
+    /**
+     * 由当前规则推导出的预过滤器，规则变更后重建
+     */
+    private volatile CharClassPrefilter prefilter;
+    /**
+     * 单次扫描的字符串检查器（{@link InspectorEngine#FUSED}），规则变更后重建
+     */
+    private volatile FusedStringInspector fusedInspector;
+    /**
+     * 经预过滤器判定无需检查、直接返回的字符串数量
+     */
+    private final LongAdder prefilterSkippedCount = new LongAdder();
 
     public StringMethodArgumentHandler(ArgumentHandlerProperties properties) {
         this.properties = properties;
@@ -50,26 +71,31 @@ public class StringMethodArgumentHandler implements MethodArgumentHandler {
         if (arg == null) {
             return null;
         }
-        String servletPath = ServletRequestUtils.getServletPath(request);
+        ArgumentHandlerPolicy policy = ArgumentHandlerPolicy.resolve(request, properties);
+        Object sanitized = request.getAttribute(SANITIZED_STRINGS_ATTRIBUTE);
+        UnaryOperator<String> checker = sanitized instanceof Set ?
+                value -> ((Set<?>) sanitized).contains(value) ? value : securityCheck4SimpleString(value, policy) :
+                value -> securityCheck4SimpleString(value, policy);
         if (arg instanceof String) {
-            return securityCheck4SimpleString(arg.toString(), servletPath);
+            return checker.apply(arg.toString());
         }
         // String数组
         boolean isStringArray = String.class == arg.getClass().getComponentType() ||
                 parameter != null && String.class == parameter.getNestedParameterType().getComponentType();
         if (isStringArray) {
-            securityCheck4StringArray((String[])arg, servletPath);
+            securityCheck4StringArray((String[])arg, checker);
+            return arg;
         }
         if (arg instanceof MultiValueMap) {
-            return securityCheck4MultiValueMap((MultiValueMap<Object, Object>) arg, servletPath);
+            return securityCheck4MultiValueMap((MultiValueMap<Object, Object>) arg, checker);
         }
         if (arg instanceof Map) {
-            return securityCheck4Map((Map<Object, Object>) arg, servletPath);
+            return securityCheck4Map((Map<Object, Object>) arg, checker);
         }
-        return securityCheck4Object(arg, servletPath);
+        return securityCheck4Object(arg, checker);
     }
 
-    private Object securityCheck4MultiValueMap(MultiValueMap<Object, Object> map, String servletPath) {
+    private Object securityCheck4MultiValueMap(MultiValueMap<Object, Object> map, UnaryOperator<String> checker) {
         for (Map.Entry<Object, List<Object>> entry : map.entrySet()) {
             List<Object> values = entry.getValue();
             if (values.isEmpty() || !(values.get(0) instanceof String)) {
@@ -83,48 +109,32 @@ public class StringMethodArgumentHandler implements MethodArgumentHandler {
                 return map;
             }
             for (Object value : objects) {
-                map.add(entry.getKey(), securityCheck4SimpleString(value.toString(), servletPath));
+                map.add(entry.getKey(), checker.apply(value.toString()));
             }
         }
         return map;
     }
 
-    private void securityCheck4StringArray(String[] strings, String servletPath) {
+    private void securityCheck4StringArray(String[] strings, UnaryOperator<String> checker) {
         for (int i = 0; i < strings.length; i++) {
             String str = strings[i];
-            Object obj = securityCheck4SimpleString(str, servletPath);
+            Object obj = str == null ? null : checker.apply(str);
             strings[i] = Objects.toString(obj, null);
         }
     }
 
-    private Object securityCheck4Object(Object arg, String servletPath) {
-        PropertyDescriptor[] propertyDescriptors = BeanUtils.getPropertyDescriptors(arg.getClass());
-        for (PropertyDescriptor pd : propertyDescriptors) {
-            Method readMethod = pd.getReadMethod();
-            Method writeMethod = pd.getWriteMethod();
-            if (readMethod == null || writeMethod == null) {
-                continue;
-            }
-            try {
-                Class<?> returnType = readMethod.getReturnType();
-                boolean isStringType = returnType.isAssignableFrom(String.class);
-                if (isStringType) {
-                    String value = Objects.toString(readMethod.invoke(arg), null);
-                    writeMethod.invoke(arg, securityCheck4SimpleString(value, servletPath));
-                }
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                logger.warn("Opos!! Calling the '{}' method encountered an unexpected exception.", writeMethod.getName(), e);
-            }
-        }
-        return arg;
+    private Object securityCheck4Object(Object arg, UnaryOperator<String> checker) {
+        ArgumentHandlerProperties.Chars chars = properties.getChars();
+        return new ObjectGraphSanitizer(checker,
+                chars.getObjectGraphMaxDepth(), chars.getObjectGraphMaxNodes()).sanitize(arg);
     }
 
-    private Map<Object, Object> securityCheck4Map(Map<Object, Object> map, String servletPath) {
+    private Map<Object, Object> securityCheck4Map(Map<Object, Object> map, UnaryOperator<String> checker) {
         for (Map.Entry<Object, Object> entry : map.entrySet()) {
             Object value = entry.getValue();
             if (value instanceof String) {
                 try {
-                    map.put(entry.getKey(), securityCheck4SimpleString(value.toString(), servletPath));
+                    map.put(entry.getKey(), checker.apply(value.toString()));
                 } catch (UnsupportedOperationException e) {
                     logger.warn("The map '{}' cannot be modified.", map.getClass().getName(), e);
                    // return value when can not edit this map
@@ -135,39 +145,79 @@ public class StringMethodArgumentHandler implements MethodArgumentHandler {
         return map;
     }
 
-    private Object securityCheck4SimpleString(String arg, String servletPath) {
+    private String securityCheck4SimpleString(String arg, ArgumentHandlerPolicy policy) {
         if (arg == null) {
             return null;
         }
-        if (enabledSqlInjectionSecurityCheck(servletPath)) {
+        // 不可能命中任何规则的字符串无需进行规则检查
+        if (!mayMatchRules(arg, policy)) {
+            return policy.isTrimEnabled() ? arg.trim() : arg;
+        }
+        if (policy.getInspectorEngine() == InspectorEngine.FUSED) {
+            return inspectFused(arg, policy);
+        }
+        if (policy.isSqlInjectCheck()) {
             arg = checkSQLInjection(arg);
         }
-        if (enabledXxsInjectionSecurityCheck(servletPath)) {
+        if (policy.isXssAttackCheck()) {
             arg = checkXSSInjection(arg);
         }
-        return properties.getChars().isTrimEnabled() ? arg.trim() : arg;
+        return policy.isTrimEnabled() ? arg.trim() : arg;
     }
 
-    private boolean enabledXxsInjectionSecurityCheck(String servletPath) {
-        return properties.getXssAttack().isCheckEnabled() &&
-                ServletRequestUtils.isNotOnWhitelist(properties.getXssAttack().getServletPathWhitelist(), servletPath);
+    private String inspectFused(String arg, ArgumentHandlerPolicy policy) {
+        try {
+            return getFusedInspector(policy).inspect(arg, policy.isSqlInjectCheck(), policy.isXssAttackCheck(),
+                    policy.isTrimEnabled());
+        } catch (SQLKeyboardDetectedException e) {
+            logger.warn("Parameter: '{}' is detected to contain an SQL keyword！", arg);
+            throw e;
+        }
     }
 
-    private boolean enabledSqlInjectionSecurityCheck(String servletPath) {
-        return properties.getSqlInject().isCheckEnabled() &&
-                ServletRequestUtils.isNotOnWhitelist(properties.getSqlInject().getServletPathWhitelist(), servletPath);
+    private FusedStringInspector getFusedInspector(ArgumentHandlerPolicy policy) {
+        SQLKeywordMatcher sqlKeywordMatcher = policy.getSqlKeywordMatcher();
+        XSSMatcher xssMatcher = policy.getXssMatcher();
+        FusedStringInspector fusedInspector = this.fusedInspector;
+        if (fusedInspector == null || !fusedInspector.isBuiltFrom(sqlKeywordMatcher, xssMatcher)) {
+            fusedInspector = FusedStringInspector.of(sqlKeywordMatcher, xssMatcher);
+            this.fusedInspector = fusedInspector;
+        }
+        return fusedInspector;
+    }
+
+    private boolean mayMatchRules(String arg, ArgumentHandlerPolicy policy) {
+        boolean sqlCheck = policy.isSqlInjectCheck();
+        boolean xssCheck = policy.isXssAttackCheck();
+        if (!sqlCheck && !xssCheck) {
+            return false;
+        }
+        if (getPrefilter(policy).mayMatch(arg, sqlCheck, xssCheck)) {
+            return true;
+        }
+        prefilterSkippedCount.increment();
+        return false;
+    }
+
+    private CharClassPrefilter getPrefilter(ArgumentHandlerPolicy policy) {
+        SQLKeywordMatcher sqlKeywordMatcher = policy.getSqlKeywordMatcher();
+        XSSMatcher xssMatcher = policy.getXssMatcher();
+        CharClassPrefilter prefilter = this.prefilter;
+        if (prefilter == null || !prefilter.isBuiltFrom(sqlKeywordMatcher, xssMatcher)) {
+            prefilter = CharClassPrefilter.of(sqlKeywordMatcher, xssMatcher);
+            this.prefilter = prefilter;
+        }
+        return prefilter;
     }
 
     protected String checkSQLInjection(String arg) {
-        String[] sqlKeywordList = properties.getSqlInject().getSqlKeywordList();
-        if (arg == null || sqlKeywordList == null) {
+        if (arg == null || properties.getSqlInject().getSqlKeywordList() == null) {
             return null;
         }
-        for (String keyword : sqlKeywordList) {
-            if (arg.contains(keyword)) {
-                logger.warn("Parameter: '{}' is detected to contain an SQL keyword！", arg);
-                throw new SQLKeyboardDetectedException("Parameter: '"+arg+"' is detected to contain an SQL keyword！");
-            }
+        // 关键词已编译为多模式匹配器，单次扫描即可完成检查
+        if (properties.getSqlInject().getSqlKeywordMatcher().matches(arg)) {
+            logger.warn("Parameter: '{}' is detected to contain an SQL keyword！", arg);
+            throw new SQLKeyboardDetectedException("Parameter: '"+arg+"' is detected to contain an SQL keyword！");
         }
         return arg;
     }
@@ -177,18 +227,29 @@ public class StringMethodArgumentHandler implements MethodArgumentHandler {
     }
 
     private String escapeHtml(String arg) {
-        String[] xssRegexList = properties.getXssAttack().getXssRegexList();
-        if (arg == null || xssRegexList == null) {
+        if (arg == null || properties.getXssAttack().getXssRegexList() == null) {
             return null;
         }
-        for (String regex : xssRegexList) {
-            if (arg.matches(regex)) {
-                return StringEscapeUtils.escapeHtml4(arg);
-            }
+        if (properties.getXssAttack().getXssMatcher().matches(arg)) {
+            return StringEscapeUtils.escapeHtml4(arg);
         }
         return arg;
     }
 
+    /**
+     * 获取经预过滤器判定无需检查、直接返回的字符串数量
+     * @author chengshaozhuang
+     * @return long
+     */
+    public long getPrefilterSkippedCount() {
+        return prefilterSkippedCount.sum();
+    }
+
+    @Override
+    public void preHandle(HttpServletRequest request) {
+        ArgumentHandlerPolicy.resolve(request, properties);
+    }
+
     public ArgumentHandlerProperties getProperties() {
         return properties;
     }
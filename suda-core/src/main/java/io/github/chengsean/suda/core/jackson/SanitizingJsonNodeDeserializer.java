@@ -0,0 +1,110 @@
+package io.github.chengsean.suda.core.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.JsonNodeDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.type.LogicalType;
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 解析{@link JsonNode}的同时对其中的文本节点进行安全检查，树的解析委托给{@link JsonNodeDeserializer}。
+ * 树中的字符串不经过字符串反序列化器，反序列化完成后的反射遍历也不会进入{@link JsonNode}，需要单独检查
+ * @author chengshaozhuang
+ */
+class SanitizingJsonNodeDeserializer<T extends JsonNode> extends StdDeserializer<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final JsonDeserializer<T> delegate;
+    private final transient MethodArgumentHandler stringMethodArgumentHandler;
+
+    @SuppressWarnings("unchecked")
+    SanitizingJsonNodeDeserializer(Class<T> type, MethodArgumentHandler stringMethodArgumentHandler) {
+        super(type);
+        this.delegate = (JsonDeserializer<T>) JsonNodeDeserializer.getDeserializer(type);
+        this.stringMethodArgumentHandler = stringMethodArgumentHandler;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        T node = delegate.deserialize(p, ctxt);
+        HttpServletRequest request = SanitizingStringDeserializer.currentRequest();
+        if (node == null || request == null) {
+            return node;
+        }
+        if (node.isTextual()) {
+            return (T) sanitize((TextNode) node, request);
+        }
+        sanitizeContainers(node, request);
+        return node;
+    }
+
+    @Override
+    public T getNullValue(DeserializationContext ctxt) throws JsonMappingException {
+        return delegate.getNullValue(ctxt);
+    }
+
+    @Override
+    public LogicalType logicalType() {
+        return delegate.logicalType();
+    }
+
+    @Override
+    public boolean isCachable() {
+        return true;
+    }
+
+    /**
+     * 逐层检查对象节点和数组节点中的文本节点，不使用递归，避免嵌套过深的请求体导致栈溢出
+     */
+    private void sanitizeContainers(JsonNode root, HttpServletRequest request) {
+        Deque<JsonNode> containers = new ArrayDeque<>();
+        containers.push(root);
+        while (!containers.isEmpty()) {
+            JsonNode container = containers.pop();
+            if (container instanceof ObjectNode) {
+                Iterator<Map.Entry<String, JsonNode>> fields = container.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    JsonNode value = field.getValue();
+                    if (value.isTextual()) {
+                        field.setValue(sanitize((TextNode) value, request));
+                    } else if (value.isContainerNode()) {
+                        containers.push(value);
+                    }
+                }
+            } else if (container instanceof ArrayNode) {
+                ArrayNode array = (ArrayNode) container;
+                for (int i = 0; i < array.size(); i++) {
+                    JsonNode value = array.get(i);
+                    if (value.isTextual()) {
+                        array.set(i, sanitize((TextNode) value, request));
+                    } else if (value.isContainerNode()) {
+                        containers.push(value);
+                    }
+                }
+            }
+        }
+    }
+
+    private JsonNode sanitize(TextNode node, HttpServletRequest request) {
+        String value = node.textValue();
+        String sanitized = (String) stringMethodArgumentHandler.securityChecks(value, request, null);
+        return sanitized == value ? node : TextNode.valueOf(sanitized);
+    }
+}
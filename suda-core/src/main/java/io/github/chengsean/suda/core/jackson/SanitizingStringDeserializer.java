@@ -0,0 +1,79 @@
+package io.github.chengsean.suda.core.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.type.LogicalType;
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.StringMethodArgumentHandler;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * 解析字符串的同时进行安全检查，字符串的解析委托给{@link StringDeserializer}。
+ * 检查后的字符串记录在请求属性中（见{@link StringMethodArgumentHandler#SANITIZED_STRINGS_ATTRIBUTE}），
+ * 反序列化完成后检查参数对象时只跳过这些字符串
+ * @author chengshaozhuang
+ */
+class SanitizingStringDeserializer extends StdScalarDeserializer<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient MethodArgumentHandler stringMethodArgumentHandler;
+
+    SanitizingStringDeserializer(MethodArgumentHandler stringMethodArgumentHandler) {
+        super(String.class);
+        this.stringMethodArgumentHandler = stringMethodArgumentHandler;
+    }
+
+    @Override
+    public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String value = StringDeserializer.instance.deserialize(p, ctxt);
+        HttpServletRequest request = currentRequest();
+        if (value == null || request == null) {
+            return value;
+        }
+        String sanitized = (String) stringMethodArgumentHandler.securityChecks(value, request, null);
+        if (sanitized != null) {
+            sanitizedStrings(request).add(sanitized);
+        }
+        return sanitized;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> sanitizedStrings(HttpServletRequest request) {
+        Object sanitized = request.getAttribute(StringMethodArgumentHandler.SANITIZED_STRINGS_ATTRIBUTE);
+        if (sanitized instanceof Set) {
+            return (Set<String>) sanitized;
+        }
+        Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        request.setAttribute(StringMethodArgumentHandler.SANITIZED_STRINGS_ATTRIBUTE, strings);
+        return strings;
+    }
+
+    @Override
+    public LogicalType logicalType() {
+        return LogicalType.Textual;
+    }
+
+    @Override
+    public boolean isCachable() {
+        return true;
+    }
+
+    static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest();
+        }
+        return null;
+    }
+}
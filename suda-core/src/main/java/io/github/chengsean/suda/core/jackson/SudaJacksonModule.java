@@ -0,0 +1,74 @@
+package io.github.chengsean.suda.core.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.StringMethodArgumentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jackson字符串检查模块，在{@link com.fasterxml.jackson.core.JsonParser}解析字符串的同时完成安全检查，
+ * 包括对象属性、集合、数组、{@link java.util.Map}的值以及{@link JsonNode}中的文本节点。
+ * 只在存在当前请求时生效，检查过的字符串记录在请求属性中（见{@link StringMethodArgumentHandler#SANITIZED_STRINGS_ATTRIBUTE}），
+ * 反序列化完成后的反射遍历跳过这些字符串，只检查未经过字符串反序列化器的字符串（如自定义反序列化器解析的属性）。
+ * 可选的集成，启用（suda.io.chars.jackson-module-enabled=true）后才注册到请求体的消息转换器
+ * @author chengshaozhuang
+ */
+public class SudaJacksonModule extends SimpleModule {
+
+    private static final Logger logger = LoggerFactory.getLogger(SudaJacksonModule.class);
+
+    public SudaJacksonModule(MethodArgumentHandler stringMethodArgumentHandler) {
+        super(SudaJacksonModule.class.getSimpleName());
+        addDeserializer(String.class, new SanitizingStringDeserializer(stringMethodArgumentHandler));
+        addDeserializer(JsonNode.class, new SanitizingJsonNodeDeserializer<>(JsonNode.class, stringMethodArgumentHandler));
+        addDeserializer(ObjectNode.class, new SanitizingJsonNodeDeserializer<>(ObjectNode.class, stringMethodArgumentHandler));
+        addDeserializer(ArrayNode.class, new SanitizingJsonNodeDeserializer<>(ArrayNode.class, stringMethodArgumentHandler));
+    }
+
+    /**
+     * 为消息转换器中的Jackson转换器注册该模块，返回新的转换器列表。
+     * 注册在复制的{@link ObjectMapper}上，不影响应用中其他使用原{@link ObjectMapper}的地方；
+     * 自定义的转换器子类以及无法复制的{@link ObjectMapper}保持原样
+     * @author chengshaozhuang
+     * @param converters 消息转换器
+     * @param stringMethodArgumentHandler 字符串参数检查
+     * @return java.util.List
+     */
+    public static List<HttpMessageConverter<?>> registerTo(List<HttpMessageConverter<?>> converters,
+                                                           MethodArgumentHandler stringMethodArgumentHandler) {
+        SudaJacksonModule module = new SudaJacksonModule(stringMethodArgumentHandler);
+        List<HttpMessageConverter<?>> result = new ArrayList<>(converters.size());
+        for (HttpMessageConverter<?> converter : converters) {
+            result.add(converter.getClass() == MappingJackson2HttpMessageConverter.class ?
+                    withModule((MappingJackson2HttpMessageConverter) converter, module) : converter);
+        }
+        return result;
+    }
+
+    private static HttpMessageConverter<?> withModule(MappingJackson2HttpMessageConverter converter,
+                                                      SudaJacksonModule module) {
+        ObjectMapper objectMapper;
+        try {
+            objectMapper = converter.getObjectMapper().copy();
+        } catch (IllegalStateException e) {
+            logger.warn("The ObjectMapper '{}' cannot be copied, JSON bodies will be checked after deserialization.",
+                    converter.getObjectMapper().getClass().getName(), e);
+            return converter;
+        }
+        MappingJackson2HttpMessageConverter sanitizingConverter =
+                new MappingJackson2HttpMessageConverter(objectMapper.registerModule(module));
+        sanitizingConverter.setSupportedMediaTypes(converter.getSupportedMediaTypes());
+        sanitizingConverter.setDefaultCharset(converter.getDefaultCharset());
+        return sanitizingConverter;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.chengsean.suda.core.matcher;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 字符类预过滤器，由已编译的SQL关键词和XSS规则推导而来，不可变且线程安全。
+ * 每条规则都必须包含某个特定字符（触发字符）才可能命中：SQL关键词取其中最不常见的一个字符，
+ * 内置的XSS检测器都需要'&lt;'。字符串中不包含任何触发字符时，可以断定它不会命中任何规则。
+ * 用户自定义的XSS正则无法推导出触发字符，此时XSS规则不做预过滤。
+ * @author chengshaozhuang
+ */
+public final class CharClassPrefilter {
+
+    private static final byte SQL = 1;
+    private static final byte XSS = 1 << 1;
+
+    private final SQLKeywordMatcher sqlKeywordMatcher;
+    private final XSSMatcher xssMatcher;
+    /**
+     * ASCII字符对应的规则掩码
+     */
+    private final byte[] asciiMasks = new byte[128];
+    /**
+     * 非ASCII触发字符（升序）及其掩码
+     */
+    private final char[] otherChars;
+    private final byte[] otherMasks;
+    /**
+     * 无法预过滤（任何字符串都可能命中）的规则掩码
+     */
+    private final byte unfilterable;
+
+    private CharClassPrefilter(SQLKeywordMatcher sqlKeywordMatcher, XSSMatcher xssMatcher) {
+        this.sqlKeywordMatcher = sqlKeywordMatcher;
+        this.xssMatcher = xssMatcher;
+        Map<Character, Byte> others = new TreeMap<>();
+        byte unfilterable = 0;
+        for (String keyword : sqlKeywordMatcher.getKeywords()) {
+            if (keyword.isEmpty()) {
+                unfilterable |= SQL;
+            } else {
+                mark(triggerOf(keyword), SQL, others);
+            }
+        }
+        if (xssMatcher.hasCustomPatterns()) {
+            unfilterable |= XSS;
+        } else if (!xssMatcher.isEmpty()) {
+            mark('<', XSS, others);
+        }
+        this.unfilterable = unfilterable;
+        this.otherChars = new char[others.size()];
+        this.otherMasks = new byte[others.size()];
+        int index = 0;
+        for (Map.Entry<Character, Byte> entry : others.entrySet()) {
+            otherChars[index] = entry.getKey();
+            otherMasks[index++] = entry.getValue();
+        }
+    }
+
+    /**
+     * 由已编译的SQL关键词规则和XSS规则创建预过滤器
+     * @author chengshaozhuang
+     * @param sqlKeywordMatcher SQL关键词规则
+     * @param xssMatcher XSS规则
+     * @return io.github.chengsean.suda.core.matcher.CharClassPrefilter
+     */
+    public static CharClassPrefilter of(SQLKeywordMatcher sqlKeywordMatcher, XSSMatcher xssMatcher) {
+        return new CharClassPrefilter(sqlKeywordMatcher, xssMatcher);
+    }
+
+    /**
+     * 判断字符串是否可能命中已启用的规则，返回{@code false}时可以跳过所有规则检查
+     * @author chengshaozhuang
+     * @param text 被检查的字符串
+     * @param sqlCheck 是否启用SQL关键词检查
+     * @param xssCheck 是否启用XSS检查
+     * @return boolean
+     */
+    public boolean mayMatch(String text, boolean sqlCheck, boolean xssCheck) {
+        byte active = (byte) ((sqlCheck ? SQL : 0) | (xssCheck ? XSS : 0));
+        if (active == 0) {
+            return false;
+        }
+        if ((unfilterable & active) != 0) {
+            return true;
+        }
+        boolean hasOthers = otherChars.length > 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 128) {
+                if ((asciiMasks[c] & active) != 0) {
+                    return true;
+                }
+            } else if (hasOthers && (otherMask(c) & active) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否由给定的规则推导而来，规则重新编译后预过滤器需要随之重建
+     * @author chengshaozhuang
+     * @param sqlKeywordMatcher 当前的SQL关键词规则
+     * @param xssMatcher 当前的XSS规则
+     * @return boolean
+     */
+    public boolean isBuiltFrom(SQLKeywordMatcher sqlKeywordMatcher, XSSMatcher xssMatcher) {
+        return this.sqlKeywordMatcher == sqlKeywordMatcher && this.xssMatcher == xssMatcher;
+    }
+
+    private void mark(char c, byte rule, Map<Character, Byte> others) {
+        if (c < 128) {
+            asciiMasks[c] |= rule;
+        } else {
+            Byte mask = others.get(c);
+            others.put(c, (byte) ((mask == null ? 0 : mask) | rule));
+        }
+    }
+
+    private byte otherMask(char c) {
+        int index = Arrays.binarySearch(otherChars, c);
+        return index >= 0 ? otherMasks[index] : 0;
+    }
+
+    /**
+     * 选取关键词中最不常见的字符作为触发字符：空白、标点等符号优先于字母和数字
+     */
+    private static char triggerOf(String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                return c;
+            }
+        }
+        return keyword.charAt(0);
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.chengsean.suda.core.matcher;
+
+import io.github.chengsean.suda.core.exception.SQLKeyboardDetectedException;
+import io.github.chengsean.suda.core.util.StringEscapeUtils;
+
+/**
+ * 单次扫描的字符串检查器，由已编译的SQL关键词和XSS规则构建，不可变且线程安全。
+ * 只遍历一次字符，同时完成去空格边界计算、SQL关键词匹配和XSS标签形态检测，
+ * 仅在字符串确实需要改变（去空格或转义）时才创建新的字符串。
+ * 用户自定义的XSS正则无法合并到单次扫描中，内置检测器未命中时仍需按正则匹配一次。
+ * @author chengshaozhuang
+ */
+public final class FusedStringInspector {
+
+    private final SQLKeywordMatcher sqlKeywordMatcher;
+    private final XSSMatcher xssMatcher;
+    private final boolean tagDetector;
+    private final boolean tagPairDetector;
+
+    private FusedStringInspector(SQLKeywordMatcher sqlKeywordMatcher, XSSMatcher xssMatcher) {
+        this.sqlKeywordMatcher = sqlKeywordMatcher;
+        this.xssMatcher = xssMatcher;
+        this.tagDetector = xssMatcher.hasDetector(XSSTagDetector.TAG);
+        this.tagPairDetector = xssMatcher.hasDetector(XSSTagDetector.TAG_PAIR);
+    }
+
+    public static FusedStringInspector of(SQLKeywordMatcher sqlKeywordMatcher, XSSMatcher xssMatcher) {
+        return new FusedStringInspector(sqlKeywordMatcher, xssMatcher);
+    }
+
+    /**
+     * 检查字符串，结果与依次进行SQL关键词检查、XSS检查（转义）、去空格一致
+     * @author chengshaozhuang
+     * @param value 被检查的字符串
+     * @param sqlCheck 是否启用SQL关键词检查
+     * @param xssCheck 是否启用XSS检查
+     * @param trim 是否去空格
+     * @return java.lang.String 无需改变时返回原字符串
+     * @throws SQLKeyboardDetectedException 字符串包含SQL关键词
+     */
+    public String inspect(String value, boolean sqlCheck, boolean xssCheck, boolean trim) {
+        sqlCheck = sqlCheck && !sqlKeywordMatcher.isEmpty();
+        xssCheck = xssCheck && !xssMatcher.isEmpty();
+        if (sqlCheck && sqlKeywordMatcher.outputOf(sqlKeywordMatcher.root()) != null) {
+            throw sqlKeywordDetected(value);
+        }
+        int length = value.length();
+        int state = sqlKeywordMatcher.root();
+        // 去空格边界
+        int begin = -1;
+        int end = 0;
+        // XSS标签形态：第一个'<'、最后一个'>'，以及成对标签的开始标签结束位置、结束标签位置
+        int open = -1;
+        int lastClose = -1;
+        int openEnd = -1;
+        int closeTag = -1;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (sqlCheck) {
+                state = sqlKeywordMatcher.next(state, c);
+                if (sqlKeywordMatcher.outputOf(state) != null) {
+                    throw sqlKeywordDetected(value);
+                }
+            }
+            if (xssCheck) {
+                if (c == '<') {
+                    if (open < 0) {
+                        open = i;
+                    } else if (openEnd >= 0 && closeTag < 0 && i >= openEnd + 2 && i + 1 < length
+                            && value.charAt(i + 1) == '/') {
+                        closeTag = i;
+                    }
+                } else if (c == '>') {
+                    lastClose = i;
+                    if (open >= 0 && openEnd < 0 && i >= open + 2) {
+                        openEnd = i;
+                    }
+                }
+            }
+            if (c > ' ') {
+                if (begin < 0) {
+                    begin = i;
+                }
+                end = i + 1;
+            }
+        }
+        boolean escape = false;
+        if (xssCheck) {
+            escape = tagDetector && open >= 0 && lastClose >= open + 2
+                    || tagPairDetector && closeTag >= 0 && lastClose >= closeTag + 3
+                    || xssMatcher.matchesCustomPatterns(value);
+        }
+        String result = value;
+        if (trim) {
+            result = begin < 0 ? "" : (begin > 0 || end < length ? value.substring(begin, end) : value);
+        }
+        // 转义不会改变首尾的空白字符，先去空格再转义与先转义再去空格结果一致
+        return escape ? StringEscapeUtils.escapeHtml4(result) : result;
+    }
+
+    /**
+     * 是否由给定的规则构建，规则重新编译后检查器需要随之重建
+     */
+    public boolean isBuiltFrom(SQLKeywordMatcher sqlKeywordMatcher, XSSMatcher xssMatcher) {
+        return this.sqlKeywordMatcher == sqlKeywordMatcher && this.xssMatcher == xssMatcher;
+    }
+
+    private static SQLKeyboardDetectedException sqlKeywordDetected(String value) {
+        return new SQLKeyboardDetectedException("Parameter: '"+value+"' is detected to contain an SQL keyword！");
+    }
+}
@@ -0,0 +1,227 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * SQL关键词多模式匹配器（Aho-Corasick自动机），由关键词列表一次性编译而成，不可变且线程安全。
+ * 每个字符串只需线性扫描一次即可得出结果，与逐个关键词调用{@link String#contains(CharSequence)}的语义一致：
+ * 关键词按字面量（区分大小写）匹配，{@code "+|user()"}这类关键词中的字符不作任何特殊解释。
+ * @author chengshaozhuang
+ */
+public final class SQLKeywordMatcher {
+
+    private static final int ROOT = 0;
+    private static final char[] NO_LABELS = new char[0];
+    private static final int[] NO_TARGETS = new int[0];
+
+    private final String[] keywords;
+    /**
+     * 每个状态的出边（按字符升序），用二分查找定位
+     */
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    /**
+     * 到达该状态时命中的关键词下标（含失配链上的关键词），-1表示未命中
+     */
+    private final int[] output;
+
+    private SQLKeywordMatcher(String[] keywords, char[][] labels, int[][] targets, int[] failure, int[] output) {
+        this.keywords = keywords;
+        this.labels = labels;
+        this.targets = targets;
+        this.failure = failure;
+        this.output = output;
+    }
+
+    /**
+     * 编译关键词列表，{@code null}元素会被忽略
+     * @author chengshaozhuang
+     * @param keywords SQL关键词列表
+     * @return io.github.chengsean.suda.core.matcher.SQLKeywordMatcher
+     */
+    public static SQLKeywordMatcher compile(@Nullable String[] keywords) {
+        List<String> words = new ArrayList<>();
+        if (keywords != null) {
+            for (String keyword : keywords) {
+                if (keyword != null) {
+                    words.add(keyword);
+                }
+            }
+        }
+        TrieBuilder builder = new TrieBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            builder.add(words.get(i), i);
+        }
+        return builder.build(words.toArray(new String[0]));
+    }
+
+    /**
+     * 返回字符串中最先出现（结束位置最靠前）的关键词
+     * @author chengshaozhuang
+     * @param text 被检查的字符串
+     * @return java.lang.String 未命中时返回{@code null}
+     */
+    @Nullable
+    public String findFirst(CharSequence text) {
+        if (keywords.length == 0 || text == null) {
+            return null;
+        }
+        int state = ROOT;
+        if (output[state] >= 0) {
+            return keywords[output[state]];
+        }
+        for (int i = 0, length = text.length(); i < length; i++) {
+            state = next(state, text.charAt(i));
+            if (output[state] >= 0) {
+                return keywords[output[state]];
+            }
+        }
+        return null;
+    }
+
+    public boolean matches(CharSequence text) {
+        return findFirst(text) != null;
+    }
+
+    public boolean isEmpty() {
+        return keywords.length == 0;
+    }
+
+    public String[] getKeywords() {
+        return keywords.clone();
+    }
+
+    /**
+     * 自动机单步转移，失配时沿失配链回退
+     */
+    int next(int state, char c) {
+        while (true) {
+            int target = transition(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * 到达该状态时命中的关键词，未命中返回{@code null}
+     */
+    @Nullable
+    String outputOf(int state) {
+        return output[state] >= 0 ? keywords[output[state]] : null;
+    }
+
+    int root() {
+        return ROOT;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(labels[state], c);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+
+    private static final class TrieBuilder {
+        private final List<StringBuilder> labels = new ArrayList<>();
+        private final List<List<Integer>> targets = new ArrayList<>();
+        private final List<Integer> output = new ArrayList<>();
+
+        private TrieBuilder() {
+            newState();
+        }
+
+        private int newState() {
+            labels.add(new StringBuilder());
+            targets.add(new ArrayList<>());
+            output.add(-1);
+            return output.size() - 1;
+        }
+
+        private int child(int state, char c) {
+            int index = labels.get(state).indexOf(String.valueOf(c));
+            return index >= 0 ? targets.get(state).get(index) : -1;
+        }
+
+        private void add(String keyword, int keywordIndex) {
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                int next = child(state, c);
+                if (next < 0) {
+                    next = newState();
+                    labels.get(state).append(c);
+                    targets.get(state).add(next);
+                }
+                state = next;
+            }
+            // 同一状态只保留列表中靠前的关键词，与原先按列表顺序检查时的提示一致
+            if (output.get(state) < 0) {
+                output.set(state, keywordIndex);
+            }
+        }
+
+        private SQLKeywordMatcher build(String[] keywords) {
+            int size = output.size();
+            char[][] sortedLabels = new char[size][];
+            int[][] sortedTargets = new int[size][];
+            for (int state = 0; state < size; state++) {
+                sort(state, sortedLabels, sortedTargets);
+            }
+            int[] failure = new int[size];
+            int[] out = new int[size];
+            for (int state = 0; state < size; state++) {
+                out[state] = output.get(state);
+            }
+            SQLKeywordMatcher matcher = new SQLKeywordMatcher(keywords, sortedLabels, sortedTargets, failure, out);
+            // 广度优先计算失配链，并把失配链上的命中结果合并到当前状态
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int target : sortedTargets[ROOT]) {
+                failure[target] = ROOT;
+                queue.add(target);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                if (out[state] < 0) {
+                    out[state] = out[failure[state]];
+                }
+                for (int i = 0; i < sortedLabels[state].length; i++) {
+                    int target = sortedTargets[state][i];
+                    failure[target] = matcher.next(failure[state], sortedLabels[state][i]);
+                    queue.add(target);
+                }
+            }
+            return matcher;
+        }
+
+        private void sort(int state, char[][] sortedLabels, int[][] sortedTargets) {
+            StringBuilder stateLabels = labels.get(state);
+            int edges = stateLabels.length();
+            if (edges == 0) {
+                sortedLabels[state] = NO_LABELS;
+                sortedTargets[state] = NO_TARGETS;
+                return;
+            }
+            long[] packed = new long[edges];
+            for (int i = 0; i < edges; i++) {
+                packed[i] = ((long) stateLabels.charAt(i) << 32) | targets.get(state).get(i);
+            }
+            Arrays.sort(packed);
+            sortedLabels[state] = new char[edges];
+            sortedTargets[state] = new int[edges];
+            for (int i = 0; i < edges; i++) {
+                sortedLabels[state][i] = (char) (packed[i] >>> 32);
+                sortedTargets[state][i] = (int) packed[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 接口白名单匹配器，将XSS、SQL注入和文件检查的接口白名单编译为同一个结构，不可变且线程安全。
+ * 不含通配符的路径放入哈希表直接查找，其余的模式共用一个{@link AntPathMatcher}，每个模式只匹配一次；
+ * 一次查找即可得到该路径在哪些检查的白名单上（掩码），查找结果按路径缓存（有数量上限）
+ * @author chengshaozhuang
+ */
+public final class ServletPathWhitelistMatcher {
+
+    /**
+     * XSS攻击检查
+     */
+    public static final int XSS_ATTACK = 1;
+    /**
+     * SQL注入检查
+     */
+    public static final int SQL_INJECT = 1 << 1;
+    /**
+     * 文件检查
+     */
+    public static final int FILES = 1 << 2;
+    /**
+     * 所有检查
+     */
+    public static final int ALL = XSS_ATTACK | SQL_INJECT | FILES;
+
+    /**
+     * 查找结果缓存的最大路径数量，避免大量不同的路径耗尽内存
+     */
+    private static final int MAX_CACHED_PATHS = 1024;
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final List<String> xssWhitelist;
+    private final List<String> sqlWhitelist;
+    private final List<String> filesWhitelist;
+    /**
+     * 不含通配符的路径及其掩码
+     */
+    private final Map<String, Integer> literals = new HashMap<>();
+    /**
+     * 含通配符的模式（按配置顺序）及其掩码
+     */
+    private final String[] patterns;
+    private final int[] patternMasks;
+    private final ConcurrentMap<String, Integer> cache = new ConcurrentHashMap<>();
+
+    private ServletPathWhitelistMatcher(List<String> xssWhitelist, List<String> sqlWhitelist,
+                                        List<String> filesWhitelist) {
+        this.xssWhitelist = xssWhitelist;
+        this.sqlWhitelist = sqlWhitelist;
+        this.filesWhitelist = filesWhitelist;
+        Map<String, Integer> patterns = new LinkedHashMap<>();
+        add(xssWhitelist, XSS_ATTACK, patterns);
+        add(sqlWhitelist, SQL_INJECT, patterns);
+        add(filesWhitelist, FILES, patterns);
+        this.patterns = patterns.keySet().toArray(new String[0]);
+        this.patternMasks = new int[this.patterns.length];
+        int index = 0;
+        for (Integer mask : patterns.values()) {
+            patternMasks[index++] = mask;
+        }
+    }
+
+    /**
+     * 编译接口白名单，白名单为{@code null}时表示没有白名单
+     * @author chengshaozhuang
+     * @param xssWhitelist XSS攻击检查的接口白名单
+     * @param sqlWhitelist SQL注入检查的接口白名单
+     * @param filesWhitelist 文件检查的接口白名单
+     * @return io.github.chengsean.suda.core.matcher.ServletPathWhitelistMatcher
+     */
+    public static ServletPathWhitelistMatcher compile(List<String> xssWhitelist, List<String> sqlWhitelist,
+                                                      List<String> filesWhitelist) {
+        return new ServletPathWhitelistMatcher(xssWhitelist, sqlWhitelist, filesWhitelist);
+    }
+
+    private void add(List<String> whitelist, int mask, Map<String, Integer> patterns) {
+        if (whitelist == null) {
+            return;
+        }
+        for (String url : whitelist) {
+            if (url == null) {
+                continue;
+            }
+            // 含有连续分隔符的路径与其他路径可能互相匹配，按模式处理
+            Map<String, Integer> target = PATH_MATCHER.isPattern(url) || url.contains("//") ? patterns : literals;
+            target.merge(url, mask, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * 查找路径在哪些检查的接口白名单上
+     * @author chengshaozhuang
+     * @param servletPath 接口路径
+     * @return int 检查的掩码，见{@link #XSS_ATTACK}、{@link #SQL_INJECT}、{@link #FILES}
+     */
+    public int match(String servletPath) {
+        if (servletPath == null) {
+            return 0;
+        }
+        Integer mask = cache.get(servletPath);
+        if (mask == null) {
+            mask = match0(servletPath);
+            if (cache.size() < MAX_CACHED_PATHS) {
+                cache.putIfAbsent(servletPath, mask);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 判断路径是否在指定检查的接口白名单上
+     * @author chengshaozhuang
+     * @param servletPath 接口路径
+     * @param check 检查，见{@link #XSS_ATTACK}、{@link #SQL_INJECT}、{@link #FILES}
+     * @return boolean
+     */
+    public boolean isOnWhitelist(String servletPath, int check) {
+        return (match(servletPath) & check) != 0;
+    }
+
+    private int match0(String servletPath) {
+        Integer literal = literals.get(servletPath);
+        int mask = literal == null ? 0 : literal;
+        if (servletPath.contains("//")) {
+            // 含有连续分隔符的路径可能与其他字面路径匹配
+            for (Map.Entry<String, Integer> entry : literals.entrySet()) {
+                if ((mask & entry.getValue()) != entry.getValue() && PATH_MATCHER.match(entry.getKey(), servletPath)) {
+                    mask |= entry.getValue();
+                }
+            }
+        }
+        for (int i = 0; i < patterns.length; i++) {
+            // 已经命中的检查无需再匹配
+            if ((mask & patternMasks[i]) != patternMasks[i] && PATH_MATCHER.match(patterns[i], servletPath)) {
+                mask |= patternMasks[i];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 是否由指定的白名单编译而来（按对象标识比较）
+     * @author chengshaozhuang
+     * @param xssWhitelist XSS攻击检查的接口白名单
+     * @param sqlWhitelist SQL注入检查的接口白名单
+     * @param filesWhitelist 文件检查的接口白名单
+     * @return boolean
+     */
+    public boolean isBuiltFrom(List<String> xssWhitelist, List<String> sqlWhitelist, List<String> filesWhitelist) {
+        return this.xssWhitelist == xssWhitelist && this.sqlWhitelist == sqlWhitelist
+                && this.filesWhitelist == filesWhitelist;
+    }
+}
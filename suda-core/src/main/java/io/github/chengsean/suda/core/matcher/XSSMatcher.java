@@ -0,0 +1,158 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * XSS检测规则，由正则表达式列表编译而成，不可变且线程安全。
+ * 与默认正则等价的规则交由{@link XSSTagDetector}线性检测，其余用户自定义的正则在编译时预先编译，
+ * 并尽可能合并为一个{@link Pattern}，使每个字符串只需扫描一次。
+ * @author chengshaozhuang
+ */
+public final class XSSMatcher {
+
+    /**
+     * 反向引用依赖捕获组序号，合并后序号会改变，此类正则只能单独编译
+     */
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+    private final XSSTagDetector[] detectors;
+    private final Pattern[] patterns;
+    /**
+     * {@link Matcher}不是线程安全的，每个线程复用各自的实例
+     */
+    private final ThreadLocal<Matcher[]> matchers;
+
+    private XSSMatcher(XSSTagDetector[] detectors, Pattern[] patterns) {
+        this.detectors = detectors;
+        this.patterns = patterns;
+        this.matchers = ThreadLocal.withInitial(this::newMatchers);
+    }
+
+    /**
+     * 编译正则表达式列表，{@code null}元素会被忽略
+     * @author chengshaozhuang
+     * @throws java.util.regex.PatternSyntaxException 正则表达式语法错误
+     * @param xssRegexList XSS正则表达式列表
+     * @return io.github.chengsean.suda.core.matcher.XSSMatcher
+     */
+    public static XSSMatcher compile(@Nullable String[] xssRegexList) {
+        Set<XSSTagDetector> detectors = EnumSet.noneOf(XSSTagDetector.class);
+        List<String> regexList = new ArrayList<>();
+        if (xssRegexList != null) {
+            for (String regex : xssRegexList) {
+                if (regex == null) {
+                    continue;
+                }
+                XSSTagDetector detector = XSSTagDetector.forRegex(regex);
+                if (detector != null) {
+                    detectors.add(detector);
+                } else {
+                    regexList.add(regex);
+                }
+            }
+        }
+        return new XSSMatcher(detectors.toArray(new XSSTagDetector[0]), compilePatterns(regexList));
+    }
+
+    private static Pattern[] compilePatterns(List<String> regexList) {
+        if (regexList.isEmpty()) {
+            return new Pattern[0];
+        }
+        List<Pattern> patterns = new ArrayList<>();
+        List<Pattern> combinable = new ArrayList<>();
+        StringBuilder combined = new StringBuilder();
+        for (String regex : regexList) {
+            // 先单独编译一次，语法错误时可以准确地指出是哪条正则
+            Pattern pattern = Pattern.compile(regex);
+            if (BACK_REFERENCE.matcher(regex).find()) {
+                patterns.add(pattern);
+                continue;
+            }
+            if (combined.length() > 0) {
+                combined.append('|');
+            }
+            combined.append("(?:").append(regex).append(')');
+            combinable.add(pattern);
+        }
+        if (combinable.size() == 1) {
+            patterns.add(0, combinable.get(0));
+        } else if (combinable.size() > 1) {
+            try {
+                patterns.add(0, Pattern.compile(combined.toString()));
+            } catch (PatternSyntaxException e) {
+                // 例如以注释结尾的(?x)正则，合并后无法编译，只能逐个匹配
+                patterns.addAll(0, combinable);
+            }
+        }
+        return patterns.toArray(new Pattern[0]);
+    }
+
+    private Matcher[] newMatchers() {
+        Matcher[] matchers = new Matcher[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            matchers[i] = patterns[i].matcher("");
+        }
+        return matchers;
+    }
+
+    /**
+     * 判断字符串是否与任一规则完全匹配
+     * @author chengshaozhuang
+     * @param text 被检查的字符串
+     * @return boolean
+     */
+    public boolean matches(String text) {
+        for (XSSTagDetector detector : detectors) {
+            if (detector.matches(text)) {
+                return true;
+            }
+        }
+        return matchesCustomPatterns(text);
+    }
+
+    /**
+     * 仅按自定义正则匹配，不包括内置检测器
+     */
+    boolean matchesCustomPatterns(String text) {
+        if (patterns.length == 0) {
+            return false;
+        }
+        for (Matcher matcher : matchers.get()) {
+            boolean matches = matcher.reset(text).matches();
+            // 不再持有被检查的字符串
+            matcher.reset("");
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean hasDetector(XSSTagDetector detector) {
+        for (XSSTagDetector d : detectors) {
+            if (d == detector) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return detectors.length == 0 && patterns.length == 0;
+    }
+
+    /**
+     * 是否包含无法由内置检测器处理的自定义正则
+     */
+    public boolean hasCustomPatterns() {
+        return patterns.length > 0;
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * 内置的HTML标签形态检测器，与默认的XSS正则表达式判定结果一致，但只需线性扫描、没有回溯。
+ * 默认正则中的{@code [\S\s\t\r\n]}可匹配任意字符，因此只需检查特定字符的相对位置即可。
+ * @author chengshaozhuang
+ */
+public enum XSSTagDetector {
+
+    /**
+     * 等价于{@code [\S\s\t\r\n]*<[\S\s\t\r\n]+(/)?>[\S\s\t\r\n]*}：
+     * 存在一个'&lt;'，其后至少间隔一个字符存在'&gt;'
+     */
+    TAG("[\\S\\s\\t\\r\\n]*<[\\S\\s\\t\\r\\n]+(/)?>[\\S\\s\\t\\r\\n]*") {
+        @Override
+        public boolean matches(CharSequence text) {
+            int open = indexOf(text, '<', 0);
+            return open >= 0 && lastIndexOf(text, '>') >= open + 2;
+        }
+    },
+
+    /**
+     * 等价于{@code [\S\s\t\r\n]*<[\S\s\t\r\n]+>[\S\s\t\r\n]+</[\S\s\t\r\n]+>[\S\s\t\r\n]*}：
+     * 依次存在开始标签、标签内容、结束标签，各部分至少间隔一个字符
+     */
+    TAG_PAIR("[\\S\\s\\t\\r\\n]*<[\\S\\s\\t\\r\\n]+>[\\S\\s\\t\\r\\n]+</[\\S\\s\\t\\r\\n]+>[\\S\\s\\t\\r\\n]*") {
+        @Override
+        public boolean matches(CharSequence text) {
+            // 每一步都取最靠前的位置，给后续部分留出最大的空间
+            int open = indexOf(text, '<', 0);
+            if (open < 0) {
+                return false;
+            }
+            int openEnd = indexOf(text, '>', open + 2);
+            if (openEnd < 0) {
+                return false;
+            }
+            int close = indexOfCloseTag(text, openEnd + 2);
+            return close >= 0 && lastIndexOf(text, '>') >= close + 3;
+        }
+    };
+
+    private final String regex;
+
+    XSSTagDetector(String regex) {
+        this.regex = regex;
+    }
+
+    /**
+     * 判断字符串是否与对应的正则表达式完全匹配
+     * @author chengshaozhuang
+     * @param text 被检查的字符串
+     * @return boolean
+     */
+    public abstract boolean matches(CharSequence text);
+
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * 查找与正则表达式等价的内置检测器
+     * @author chengshaozhuang
+     * @param regex 正则表达式
+     * @return io.github.chengsean.suda.core.matcher.XSSTagDetector 不存在时返回{@code null}
+     */
+    @Nullable
+    public static XSSTagDetector forRegex(@Nullable String regex) {
+        if (regex == null) {
+            return null;
+        }
+        for (XSSTagDetector detector : values()) {
+            if (detector.regex.equals(regex)) {
+                return detector;
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from) {
+        for (int i = from, length = text.length(); i < length; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(CharSequence text, char c) {
+        for (int i = text.length() - 1; i >= 0; i--) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfCloseTag(CharSequence text, int from) {
+        for (int i = from, length = text.length() - 1; i < length; i++) {
+            if (text.charAt(i) == '<' && text.charAt(i + 1) == '/') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
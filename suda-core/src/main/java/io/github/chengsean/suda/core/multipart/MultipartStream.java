@@ -0,0 +1,194 @@
+package io.github.chengsean.suda.core.multipart;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * multipart请求体的流式解析，边读取边查找分隔符，不缓冲整个请求体。
+ * 格式见RFC 7578、RFC 2046
+ * @author chengshaozhuang
+ */
+final class MultipartStream {
+
+    /**
+     * 单个文件部分的请求头的最大长度
+     */
+    private static final int MAX_HEADER_SIZE = 10 * 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final InputStream inputStream;
+    /**
+     * 分隔符："\r\n--" + boundary
+     */
+    private final byte[] delimiter;
+    private final long maxRequestSize;
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    private long bytesRead;
+
+    MultipartStream(InputStream inputStream, String boundary, long maxRequestSize) {
+        this.inputStream = inputStream;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.maxRequestSize = maxRequestSize;
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+        // 第一个分隔符前没有换行，在开头补上，使其与其他分隔符一致
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.tail = 2;
+    }
+
+    /**
+     * 跳过第一个分隔符之前的内容
+     * @author chengshaozhuang
+     * @return boolean 是否存在下一个部分
+     */
+    boolean skipPreamble() throws IOException {
+        readBody(null);
+        return readBoundaryEnd();
+    }
+
+    /**
+     * 读取当前部分的请求头
+     * @author chengshaozhuang
+     * @return org.springframework.http.HttpHeaders
+     */
+    HttpHeaders readHeaders() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        int size = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        while (true) {
+            byte b = readByte();
+            if (++size > MAX_HEADER_SIZE) {
+                throw new MultipartException("Multipart header exceeds the maximum size of " + MAX_HEADER_SIZE);
+            }
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+            line.reset();
+            if (text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            if (text.isEmpty()) {
+                return headers;
+            }
+            int colon = text.indexOf(':');
+            if (colon > 0) {
+                headers.add(text.substring(0, colon).trim(), text.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    /**
+     * 读取当前部分的内容直到下一个分隔符
+     * @author chengshaozhuang
+     * @param sink 内容的接收者，为{@code null}时丢弃
+     */
+    void readBody(BodySink sink) throws IOException {
+        while (true) {
+            int index = indexOfDelimiter();
+            if (index >= 0) {
+                write(sink, index - head);
+                head = index + delimiter.length;
+                return;
+            }
+            // 末尾可能是分隔符的开头，保留到下次查找
+            int safe = tail - delimiter.length + 1;
+            if (safe > head) {
+                write(sink, safe - head);
+            }
+            if (!fill()) {
+                throw new MultipartException("Stream ended unexpectedly, multipart boundary not found");
+            }
+        }
+    }
+
+    /**
+     * 读取分隔符之后的内容
+     * @author chengshaozhuang
+     * @return boolean 是否存在下一个部分，结束分隔符（"--"）时返回{@code false}
+     */
+    boolean readBoundaryEnd() throws IOException {
+        byte first = readByte();
+        if (first == '-' && readByte() == '-') {
+            return false;
+        }
+        // 忽略分隔符之后的空白
+        byte b = first;
+        while (b == ' ' || b == '\t') {
+            b = readByte();
+        }
+        if (b == '\r') {
+            b = readByte();
+        }
+        if (b != '\n') {
+            throw new MultipartException("Malformed multipart boundary");
+        }
+        return true;
+    }
+
+    private void write(BodySink sink, int length) throws IOException {
+        if (sink != null && length > 0) {
+            sink.write(buffer, head, length);
+        }
+        head += length;
+    }
+
+    private int indexOfDelimiter() {
+        int last = tail - delimiter.length;
+        for (int i = head; i <= last; i++) {
+            if (buffer[i] != delimiter[0]) {
+                continue;
+            }
+            int j = 1;
+            while (j < delimiter.length && buffer[i + j] == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private byte readByte() throws IOException {
+        if (head == tail && !fill()) {
+            throw new MultipartException("Stream ended unexpectedly");
+        }
+        return buffer[head++];
+    }
+
+    private boolean fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        int read = inputStream.read(buffer, tail, buffer.length - tail);
+        if (read < 0) {
+            return false;
+        }
+        bytesRead += read;
+        if (maxRequestSize >= 0 && bytesRead > maxRequestSize) {
+            throw new MaxUploadSizeExceededException(maxRequestSize);
+        }
+        tail += read;
+        return true;
+    }
+
+    /**
+     * 部分内容的接收者
+     */
+    interface BodySink {
+
+        void write(byte[] bytes, int offset, int length) throws IOException;
+    }
+}
@@ -0,0 +1,284 @@
+package io.github.chengsean.suda.core.multipart;
+
+import io.github.chengsean.suda.core.handler.ArgumentHandlerPolicy;
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import io.github.chengsean.suda.core.handler.FileMethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.tika.TikaWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.DefaultMultipartHttpServletRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.Part;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * 流式解析multipart请求并提前检查文件：读取到文件部分的请求头时检查文件扩展名黑名单，
+ * 读取到文件头时检测文件类型，检查不通过时立即停止读取请求体并抛出异常，无需等待整个请求上传完成。
+ * 检查规则与{@link io.github.chengsean.suda.core.handler.FileMethodArgumentHandler}一致，接口白名单同样生效。
+ * 文本字段由解析得到的请求直接返回，不再经过被包装的请求，所以解析时同样经过字符串参数的安全检查
+ * @author chengshaozhuang
+ */
+public class SecurityStreamingMultipartResolver implements MultipartResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecurityStreamingMultipartResolver.class);
+
+    private final ArgumentHandlerProperties properties;
+    private final TikaWrapper tikaWrapper;
+    private final MethodArgumentHandler stringMethodArgumentHandler;
+    private long maxFileSize = -1;
+    private long maxRequestSize = -1;
+    private int fileSizeThreshold = 0;
+    private Path location = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    public SecurityStreamingMultipartResolver(ArgumentHandlerProperties properties, TikaWrapper tikaWrapper,
+                                              MethodArgumentHandler stringMethodArgumentHandler) {
+        this.properties = properties;
+        this.tikaWrapper = tikaWrapper;
+        this.stringMethodArgumentHandler = stringMethodArgumentHandler;
+    }
+
+    @Override
+    public boolean isMultipart(HttpServletRequest request) {
+        return StringUtils.startsWithIgnoreCase(request.getContentType(), "multipart/");
+    }
+
+    @Override
+    public MultipartHttpServletRequest resolveMultipart(HttpServletRequest request) throws MultipartException {
+        if (maxRequestSize >= 0 && request.getContentLengthLong() > maxRequestSize) {
+            throw new MaxUploadSizeExceededException(maxRequestSize);
+        }
+        String boundary = getBoundary(request);
+        boolean filesCheck = ArgumentHandlerPolicy.resolve(request, properties).isFilesCheck();
+        List<StreamedPart> parts = new ArrayList<>();
+        try {
+            MultipartStream stream = new MultipartStream(request.getInputStream(), boundary, maxRequestSize);
+            boolean hasNext = stream.skipPreamble();
+            while (hasNext) {
+                StreamedPart part = createPart(stream.readHeaders());
+                parts.add(part);
+                if (filesCheck && part.isFile()) {
+                    // 读取文件内容之前检查扩展名
+                    tikaWrapper.checkExtension(part.getSubmittedFileName());
+                    InspectingSink sink = new InspectingSink(part);
+                    stream.readBody(sink);
+                    sink.complete();
+                    part.complete();
+                    // 压缩包中的文件需要读取完整的内容后检查
+                    tikaWrapper.checkArchive(part.getSubmittedFileName(), part);
+                    // 检查与FileMethodArgumentHandler相同，记录后参数解析器不再读取文件内容
+                    FileMethodArgumentHandler.inspectedFiles(request).add(part);
+                } else {
+                    stream.readBody(part);
+                    part.complete();
+                }
+                hasNext = stream.readBoundaryEnd();
+            }
+            return new StreamedMultipartHttpServletRequest(request, parts, getCharset(request),
+                    value -> (String) stringMethodArgumentHandler.securityChecks(value, request, null));
+        } catch (IOException e) {
+            cleanup(parts);
+            throw new MultipartException("Failed to parse multipart servlet request", e);
+        } catch (RuntimeException e) {
+            cleanup(parts);
+            throw e;
+        }
+    }
+
+    private StreamedPart createPart(HttpHeaders headers) {
+        String disposition = headers.getFirst(HttpHeaders.CONTENT_DISPOSITION);
+        if (disposition == null) {
+            throw new MultipartException("Multipart part without Content-Disposition header");
+        }
+        ContentDisposition contentDisposition;
+        try {
+            contentDisposition = ContentDisposition.parse(disposition);
+        } catch (IllegalArgumentException e) {
+            throw new MultipartException("Invalid Content-Disposition header: " + disposition, e);
+        }
+        return new StreamedPart(contentDisposition.getName(), contentDisposition.getFilename(), headers,
+                tikaWrapper.getSniffLength(), fileSizeThreshold, maxFileSize, location);
+    }
+
+    private static String getBoundary(HttpServletRequest request) {
+        try {
+            String boundary = MediaType.parseMediaType(request.getContentType()).getParameter("boundary");
+            if (StringUtils.hasLength(boundary)) {
+                return StringUtils.trimTrailingCharacter(StringUtils.trimLeadingCharacter(boundary, '"'), '"');
+            }
+        } catch (IllegalArgumentException e) {
+            throw new MultipartException("Invalid multipart content type: " + request.getContentType(), e);
+        }
+        throw new MultipartException("Multipart boundary not found in content type: " + request.getContentType());
+    }
+
+    private static Charset getCharset(HttpServletRequest request) {
+        String encoding = request.getCharacterEncoding();
+        return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public void cleanupMultipart(MultipartHttpServletRequest request) {
+        if (request instanceof StreamedMultipartHttpServletRequest) {
+            cleanup(((StreamedMultipartHttpServletRequest) request).parts);
+        }
+    }
+
+    private static void cleanup(Collection<StreamedPart> parts) {
+        for (StreamedPart part : parts) {
+            try {
+                part.delete();
+            } catch (IOException e) {
+                logger.warn("Failed to delete multipart temporary file of '{}': {}", part.getName(), e.getMessage());
+            }
+        }
+    }
+
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public void setMaxRequestSize(long maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    public void setFileSizeThreshold(int fileSizeThreshold) {
+        this.fileSizeThreshold = fileSizeThreshold;
+    }
+
+    public void setLocation(Path location) {
+        this.location = location;
+    }
+
+    /**
+     * 文件头读取完整时检测文件类型
+     */
+    private final class InspectingSink implements MultipartStream.BodySink {
+        private final StreamedPart part;
+        private boolean inspected;
+
+        private InspectingSink(StreamedPart part) {
+            this.part = part;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            part.write(bytes, offset, length);
+            if (!inspected && part.isHeaderComplete()) {
+                inspect();
+            }
+        }
+
+        /**
+         * 内容读取完成，文件比文件头短时在此检测
+         */
+        private void complete() throws IOException {
+            if (!inspected) {
+                inspect();
+            }
+        }
+
+        private void inspect() throws IOException {
+            inspected = true;
+            tikaWrapper.checkFileHeader(part.getSubmittedFileName(), part::getHeaderInputStream);
+        }
+    }
+
+    /**
+     * 流式解析得到的multipart请求，{@link #getParts()}同样返回解析得到的部分，不再由容器解析请求体
+     */
+    private static final class StreamedMultipartHttpServletRequest extends DefaultMultipartHttpServletRequest {
+
+        private final List<StreamedPart> parts;
+
+        /**
+         * @param sanitizer 文本字段的安全检查，{@link DefaultMultipartHttpServletRequest}直接返回文本字段，
+         *                  不会经过被包装的请求（如{@link io.github.chengsean.suda.core.resolver.request.ArgumentHandlerHttpServletRequest}）
+         */
+        private StreamedMultipartHttpServletRequest(HttpServletRequest request, List<StreamedPart> parts,
+                                                    Charset charset, UnaryOperator<String> sanitizer) throws IOException {
+            super(request);
+            this.parts = parts;
+            MultiValueMap<String, MultipartFile> files = new LinkedMultiValueMap<>();
+            Map<String, List<String>> parameters = new LinkedHashMap<>();
+            Map<String, String> contentTypes = new HashMap<>();
+            for (StreamedPart part : parts) {
+                if (part.getName() == null) {
+                    continue;
+                }
+                if (part.isFile()) {
+                    files.add(part.getName(), part);
+                    continue;
+                }
+                Charset partCharset = charset;
+                MediaType contentType = part.getHttpHeaders().getContentType();
+                if (contentType != null && contentType.getCharset() != null) {
+                    partCharset = contentType.getCharset();
+                }
+                try (InputStream inputStream = part.getInputStream()) {
+                    parameters.computeIfAbsent(part.getName(), key -> new ArrayList<>())
+                            .add(sanitizer.apply(StreamUtils.copyToString(inputStream, partCharset)));
+                }
+                if (part.getContentType() != null) {
+                    contentTypes.put(part.getName(), part.getContentType());
+                }
+            }
+            Map<String, String[]> multipartParameters = new LinkedHashMap<>();
+            parameters.forEach((name, values) -> multipartParameters.put(name, values.toArray(new String[0])));
+            setMultipartFiles(files);
+            setMultipartParameters(multipartParameters);
+            setMultipartParameterContentTypes(contentTypes);
+        }
+
+        @Override
+        public Collection<Part> getParts() {
+            return new ArrayList<>(parts);
+        }
+
+        @Override
+        public Part getPart(String name) {
+            for (StreamedPart part : parts) {
+                if (ObjectUtils.nullSafeEquals(part.getName(), name)) {
+                    return part;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getMultipartHeaders(String paramOrFileName) {
+            for (StreamedPart part : parts) {
+                if (ObjectUtils.nullSafeEquals(part.getName(), paramOrFileName)) {
+                    return part.getHttpHeaders();
+                }
+            }
+            return null;
+        }
+    }
+}
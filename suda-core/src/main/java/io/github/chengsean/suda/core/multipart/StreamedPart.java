@@ -0,0 +1,206 @@
+package io.github.chengsean.suda.core.multipart;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.Part;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 流式解析得到的请求部分，同时作为{@link MultipartFile}和{@link Part}使用。
+ * 内容不超过阈值时保存在内存中，否则写入临时文件
+ * @author chengshaozhuang
+ */
+final class StreamedPart implements MultipartFile, Part, MultipartStream.BodySink {
+
+    private static final byte[] NO_HEADER = new byte[0];
+
+    private final String name;
+    @Nullable
+    private final String filename;
+    private final HttpHeaders headers;
+    private final int fileSizeThreshold;
+    private final long maxFileSize;
+    private final Path location;
+    /**
+     * 文件头，用于检测文件类型，文本字段不检测，不分配
+     */
+    private final byte[] header;
+    private int headerLength;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private Path file;
+    private OutputStream fileOutputStream;
+    private long size;
+
+    StreamedPart(String name, @Nullable String filename, HttpHeaders headers, int sniffLength,
+                 int fileSizeThreshold, long maxFileSize, Path location) {
+        this.name = name;
+        this.filename = filename;
+        this.headers = headers;
+        this.header = filename != null ? new byte[sniffLength] : NO_HEADER;
+        this.fileSizeThreshold = fileSizeThreshold;
+        this.maxFileSize = maxFileSize;
+        this.location = location;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        size += length;
+        if (maxFileSize >= 0 && size > maxFileSize) {
+            throw new MaxUploadSizeExceededException(maxFileSize);
+        }
+        if (headerLength < header.length) {
+            int copy = Math.min(length, header.length - headerLength);
+            System.arraycopy(bytes, offset, header, headerLength, copy);
+            headerLength += copy;
+        }
+        if (memory != null && memory.size() + length > fileSizeThreshold) {
+            // 超过阈值，写入临时文件
+            file = Files.createTempFile(location, "suda-multipart-", ".tmp");
+            fileOutputStream = Files.newOutputStream(file);
+            memory.writeTo(fileOutputStream);
+            memory = null;
+        }
+        if (memory != null) {
+            memory.write(bytes, offset, length);
+        } else {
+            fileOutputStream.write(bytes, offset, length);
+        }
+    }
+
+    /**
+     * 文件头是否已经读取完整（或者内容已经全部读取）
+     * @author chengshaozhuang
+     * @return boolean
+     */
+    boolean isHeaderComplete() {
+        return headerLength == header.length;
+    }
+
+    InputStream getHeaderInputStream() {
+        return new ByteArrayInputStream(header, 0, headerLength);
+    }
+
+    /**
+     * 内容读取完成
+     * @author chengshaozhuang
+     */
+    void complete() throws IOException {
+        if (fileOutputStream != null) {
+            fileOutputStream.close();
+            fileOutputStream = null;
+        }
+    }
+
+    boolean isFile() {
+        return filename != null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @Nullable
+    public String getOriginalFilename() {
+        return filename;
+    }
+
+    @Override
+    @Nullable
+    public String getSubmittedFileName() {
+        return filename;
+    }
+
+    @Override
+    @Nullable
+    public String getContentType() {
+        return headers.getFirst(HttpHeaders.CONTENT_TYPE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        if (memory != null) {
+            return memory.toByteArray();
+        }
+        return Files.readAllBytes(file);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (memory != null) {
+            return new ByteArrayInputStream(memory.toByteArray());
+        }
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException, IllegalStateException {
+        if (memory != null) {
+            FileCopyUtils.copy(memory.toByteArray(), dest);
+        } else {
+            Files.copy(file, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void write(String fileName) throws IOException {
+        File dest = new File(fileName);
+        transferTo(dest.isAbsolute() ? dest : location.resolve(fileName).toFile());
+    }
+
+    @Override
+    public void delete() throws IOException {
+        complete();
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    @Nullable
+    public String getHeader(String name) {
+        return headers.getFirst(name);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? Collections.emptyList() : new ArrayList<>(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return new ArrayList<>(headers.keySet());
+    }
+
+    HttpHeaders getHttpHeaders() {
+        return headers;
+    }
+}
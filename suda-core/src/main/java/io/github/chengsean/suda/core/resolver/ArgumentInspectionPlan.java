@@ -0,0 +1,54 @@
+package io.github.chengsean.suda.core.resolver;
+
+import io.github.chengsean.suda.core.handler.ArgumentShape;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.support.MultipartResolutionDelegate;
+
+import javax.servlet.http.Part;
+
+/**
+ * 方法参数的检查计划，只预先计算两项：参数是否文件类型，以及参数的{@link ArgumentShape}。
+ * 目前由{@link SecurityRequestParamMethodArgumentResolver}和{@link SecurityRequestParamMapMethodArgumentResolver}使用，
+ * 其他参数解析器仍按原方式处理。参数的类型信息不会改变，
+ * 每个{@link MethodParameter}只计算一次（见{@link ArgumentInspectionPlanRegistry}），不可变且线程安全
+ * @author chengshaozhuang
+ */
+public final class ArgumentInspectionPlan {
+
+    /**
+     * 是否文件类型参数（{@link MultipartFile}、{@link Part}及其集合、数组）
+     */
+    private final boolean multipartArgument;
+    /**
+     * 参数的形态
+     */
+    private final ArgumentShape shape;
+
+    private ArgumentInspectionPlan(MethodParameter parameter) {
+        this.multipartArgument = MultipartResolutionDelegate.isMultipartArgument(parameter);
+        this.shape = ArgumentShape.of(parameter);
+    }
+
+    static ArgumentInspectionPlan of(MethodParameter parameter) {
+        return new ArgumentInspectionPlan(parameter);
+    }
+
+    /**
+     * 是否文件类型参数
+     * @author chengshaozhuang
+     * @return boolean
+     */
+    public boolean isMultipartArgument() {
+        return multipartArgument;
+    }
+
+    /**
+     * 获取参数的形态
+     * @author chengshaozhuang
+     * @return io.github.chengsean.suda.core.handler.ArgumentShape
+     */
+    public ArgumentShape getShape() {
+        return shape;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.chengsean.suda.core.resolver;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 方法参数检查计划的注册表，启动时为所有请求处理方法的参数预先计算检查计划，
+ * 供{@code @RequestParam}相关的参数解析器在运行时直接查找，未预先计算的参数（如动态注册的处理方法）在首次使用时计算
+ * @author chengshaozhuang
+ */
+public class ArgumentInspectionPlanRegistry {
+
+    private final Map<MethodParameter, ArgumentInspectionPlan> plans = new ConcurrentHashMap<>(256);
+
+    /**
+     * 为请求处理方法的所有参数预先计算检查计划
+     * @author chengshaozhuang
+     * @param handlerMethods 请求处理方法
+     */
+    public void precompute(Collection<HandlerMethod> handlerMethods) {
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+                getPlan(parameter);
+            }
+        }
+    }
+
+    /**
+     * 获取方法参数的检查计划
+     * @author chengshaozhuang
+     * @param parameter 方法参数
+     * @return io.github.chengsean.suda.core.resolver.ArgumentInspectionPlan
+     */
+    public ArgumentInspectionPlan getPlan(MethodParameter parameter) {
+        ArgumentInspectionPlan plan = plans.get(parameter);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(parameter, ArgumentInspectionPlan::of);
+        }
+        return plan;
+    }
+
+    /**
+     * 获取已计算的检查计划数量
+     * @author chengshaozhuang
+     * @return int
+     */
+    public int size() {
+        return plans.size();
+    }
+}
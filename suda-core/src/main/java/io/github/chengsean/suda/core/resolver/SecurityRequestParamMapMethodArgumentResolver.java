@@ -1,8 +1,5 @@
 package io.github.chengsean.suda.core.resolver;
 
-import org.springframework.core.ResolvableType;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.multipart.MultipartFile;
 import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
 import org.springframework.core.MethodParameter;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -12,7 +9,6 @@ import org.springframework.web.method.annotation.RequestParamMapMethodArgumentRe
 import org.springframework.web.method.support.ModelAndViewContainer;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.Part;
 import java.util.Map;
 
 /**
@@ -28,11 +24,19 @@ public class SecurityRequestParamMapMethodArgumentResolver extends RequestParamM
 
     private final MethodArgumentHandler stringMethodArgumentHandler;
     private final MethodArgumentHandler fileMethodArgumentHandler;
+    private final ArgumentInspectionPlanRegistry planRegistry;
 
     public SecurityRequestParamMapMethodArgumentResolver(MethodArgumentHandler stringMethodArgumentHandler,
                                                          MethodArgumentHandler fileMethodArgumentHandler) {
+        this(stringMethodArgumentHandler, fileMethodArgumentHandler, new ArgumentInspectionPlanRegistry());
+    }
+
+    public SecurityRequestParamMapMethodArgumentResolver(MethodArgumentHandler stringMethodArgumentHandler,
+                                                         MethodArgumentHandler fileMethodArgumentHandler,
+                                                         ArgumentInspectionPlanRegistry planRegistry) {
         this.stringMethodArgumentHandler = stringMethodArgumentHandler;
         this.fileMethodArgumentHandler = fileMethodArgumentHandler;
+        this.planRegistry = planRegistry;
     }
 
     @Override
@@ -40,23 +44,12 @@ public class SecurityRequestParamMapMethodArgumentResolver extends RequestParamM
                                   WebDataBinderFactory binderFactory) throws Exception {
         Object arg = super.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
         HttpServletRequest servletRequest = webRequest.getNativeRequest(HttpServletRequest.class);
-        if (isMultipartArgument(parameter)) {
-            return fileMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
-        }
-        return stringMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
-    }
-
-    private boolean isMultipartArgument(MethodParameter parameter) {
-        ResolvableType resolvableType = ResolvableType.forMethodParameter(parameter);
-        Class<?> valueType;
-        if (MultiValueMap.class.isAssignableFrom(parameter.getParameterType())) {
-            // MultiValueMap
-            valueType = resolvableType.as(MultiValueMap.class).getGeneric(1).resolve();
-        } else {
-            // Regular Map
-            valueType = resolvableType.asMap().getGeneric(1).resolve();
+        switch (planRegistry.getPlan(parameter).getShape()) {
+            case MULTIPART_MULTI_VALUE_MAP:
+            case MULTIPART_MAP:
+                return fileMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
+            default:
+                return stringMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
         }
-        // File type or String[]
-        return MultipartFile.class == valueType || Part.class == valueType;
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package io.github.chengsean.suda.core.resolver;
 
 import org.springframework.ui.Model;
-import org.springframework.web.multipart.support.MultipartResolutionDelegate;
 import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.core.MethodParameter;
@@ -24,19 +23,28 @@ public class SecurityRequestParamMethodArgumentResolver extends RequestParamMeth
 
     private final MethodArgumentHandler stringMethodArgumentHandler;
     private final MethodArgumentHandler fileMethodArgumentHandler;
+    private final ArgumentInspectionPlanRegistry planRegistry;
 
     public SecurityRequestParamMethodArgumentResolver(@Nullable ConfigurableBeanFactory beanFactory, boolean useDefaultResolution,
                                                       MethodArgumentHandler stringMethodArgumentHandler, MethodArgumentHandler fileMethodArgumentHandler) {
+        this(beanFactory, useDefaultResolution, stringMethodArgumentHandler, fileMethodArgumentHandler,
+                new ArgumentInspectionPlanRegistry());
+    }
+
+    public SecurityRequestParamMethodArgumentResolver(@Nullable ConfigurableBeanFactory beanFactory, boolean useDefaultResolution,
+                                                      MethodArgumentHandler stringMethodArgumentHandler, MethodArgumentHandler fileMethodArgumentHandler,
+                                                      ArgumentInspectionPlanRegistry planRegistry) {
         super(beanFactory, useDefaultResolution);
         this.stringMethodArgumentHandler = stringMethodArgumentHandler;
         this.fileMethodArgumentHandler = fileMethodArgumentHandler;
+        this.planRegistry = planRegistry;
     }
 
     @Override
     protected Object resolveName(String name, MethodParameter parameter, NativeWebRequest webRequest) throws Exception {
         Object arg = super.resolveName(name, parameter, webRequest);
         HttpServletRequest servletRequest = webRequest.getNativeRequest(HttpServletRequest.class);
-        if (MultipartResolutionDelegate.isMultipartArgument(parameter)) {
+        if (planRegistry.getPlan(parameter).isMultipartArgument()) {
             return fileMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
         }
         return stringMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
@@ -1,9 +1,12 @@
 package io.github.chengsean.suda.core.resolver;
 
 import org.springframework.web.bind.annotation.ResponseBody;
+import io.github.chengsean.suda.core.exception.SQLKeyboardDetectedException;
 import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.StringMethodArgumentHandler;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.support.WebDataBinderFactory;
@@ -32,8 +35,25 @@ public class SecurityRequestResponseBodyMethodProcessor extends RequestResponseB
     @Override
     public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
                                   NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
-        Object arg = super.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
         HttpServletRequest servletRequest = webRequest.getNativeRequest(HttpServletRequest.class);
-        return stringMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
+        try {
+            Object arg;
+            try {
+                arg = super.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
+            } catch (HttpMessageNotReadableException e) {
+                // 反序列化时检查出的异常被Jackson包装，还原为原异常
+                if (e.getMostSpecificCause() instanceof SQLKeyboardDetectedException) {
+                    throw (SQLKeyboardDetectedException) e.getMostSpecificCause();
+                }
+                throw e;
+            }
+            // 反序列化时检查过的字符串（见io.github.chengsean.suda.core.jackson.SudaJacksonModule）会被跳过，
+            // 未经过字符串反序列化器的字符串（如自定义反序列化器解析的属性）仍在这里检查
+            return stringMethodArgumentHandler.securityChecks(arg, servletRequest, parameter);
+        } finally {
+            if (servletRequest != null) {
+                servletRequest.removeAttribute(StringMethodArgumentHandler.SANITIZED_STRINGS_ATTRIBUTE);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package io.github.chengsean.suda.core.resolver.request;
 
+import io.github.chengsean.suda.core.handler.FileMethodArgumentHandler;
 import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
 import io.github.chengsean.suda.core.util.StringUtils;
 
@@ -9,6 +10,10 @@ import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.Part;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  *
@@ -19,6 +24,10 @@ public class ArgumentHandlerHttpServletRequest extends HttpServletRequestWrapper
     private final MethodArgumentHandler stringMethodArgumentHandler;
     private final MethodArgumentHandler fileMethodArgumentHandler;
     private final HttpServletRequest request;
+    /**
+     * 检查后的请求参数，首次访问时计算
+     */
+    private volatile Map<String, String[]> sanitizedParameterMap;
 
     /**
      * Constructs a request object wrapping the given request.
@@ -56,26 +65,68 @@ public class ArgumentHandlerHttpServletRequest extends HttpServletRequestWrapper
     }
 
 
+    /**
+     * 检查文件。检查结论记录在请求属性中（见{@link FileMethodArgumentHandler#INSPECTED_FILES_ATTRIBUTE}），
+     * 同一个{@link Part}实例在请求期间只检查一次，参数解析器再次检查时直接通过
+     * @author chengshaozhuang
+     * @param part 文件
+     */
     private void securityCheckFile(Part part) {
         fileMethodArgumentHandler.securityChecks(part, request, null);
     }
 
     @Override
     public String getParameter(String name) {
-        return securityCheckString(super.getParameter(name));
+        String[] values = getSanitizedParameterMap().get(name);
+        return values == null || values.length == 0 ? null : values[0];
     }
 
     @Override
     public String[] getParameterValues(String name) {
-        String[] values = super.getParameterValues(name);
-        if (values == null) {
-            return null;
+        String[] values = getSanitizedParameterMap().get(name);
+        return values == null ? null : values.clone();
+    }
+
+    /**
+     * 返回检查后的请求参数的副本，参数值数组也是副本，修改后不影响之后的访问
+     * @author chengshaozhuang
+     * @return java.util.Map
+     */
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        Map<String, String[]> parameterMap = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> entry : getSanitizedParameterMap().entrySet()) {
+            parameterMap.put(entry.getKey(), entry.getValue().clone());
         }
-        for (int i = 0; i < values.length; i++) {
-            String value = values[i];
-            values[i] = securityCheckString(value);
+        return Collections.unmodifiableMap(parameterMap);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(getSanitizedParameterMap().keySet());
+    }
+
+    /**
+     * 获取检查后的请求参数，首次访问时检查所有参数，之后直接读取，不可修改。
+     * 检查不通过时不缓存，再次访问时重新检查并抛出异常
+     * @author chengshaozhuang
+     * @return java.util.Map
+     */
+    private Map<String, String[]> getSanitizedParameterMap() {
+        Map<String, String[]> parameterMap = this.sanitizedParameterMap;
+        if (parameterMap == null) {
+            Map<String, String[]> sanitized = new LinkedHashMap<>();
+            for (Map.Entry<String, String[]> entry : super.getParameterMap().entrySet()) {
+                String[] values = entry.getValue() == null ? new String[0] : entry.getValue().clone();
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = securityCheckString(values[i]);
+                }
+                sanitized.put(entry.getKey(), values);
+            }
+            parameterMap = Collections.unmodifiableMap(sanitized);
+            this.sanitizedParameterMap = parameterMap;
         }
-        return values;
+        return parameterMap;
     }
 
     private String securityCheckString(String value) {
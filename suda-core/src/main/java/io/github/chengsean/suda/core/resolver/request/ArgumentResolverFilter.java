@@ -1,6 +1,8 @@
 package io.github.chengsean.suda.core.resolver.request;
 
 import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.matcher.ServletPathWhitelistMatcher;
+import io.github.chengsean.suda.core.util.ServletRequestUtils;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -9,35 +11,98 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * description
- *
+ * 参数检查过滤器，将请求包装为{@link ArgumentHandlerHttpServletRequest}，检查请求参数和上传的文件。
+ * 请求进入时先判断是否需要检查：既没有查询字符串，也不是表单（application/x-www-form-urlencoded）或文件上传（multipart/*）
+ * 的请求没有可检查的请求参数，接口路径在排除列表上的请求不需要包装，这两类请求直接交给下一个过滤器；
+ * 参数解析器仍会检查接口方法的参数
  * @author chengshaozhuang
  */
 public class ArgumentResolverFilter implements Filter {
 
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final String MULTIPART_CONTENT_TYPE = "multipart/";
+
     private final MethodArgumentHandler stringMethodArgumentHandler;
     private final MethodArgumentHandler fileMethodArgumentHandler;
+    // 由排除的接口路径编译的匹配器，没有排除的接口路径时为null
+    private final ServletPathWhitelistMatcher excludedPathMatcher;
+    private final LongAdder bypassedCount = new LongAdder();
 
     public ArgumentResolverFilter(MethodArgumentHandler stringMethodArgumentHandler,
                                   MethodArgumentHandler fileMethodArgumentHandler) {
+        this(stringMethodArgumentHandler, fileMethodArgumentHandler, Collections.emptyList());
+    }
+
+    public ArgumentResolverFilter(MethodArgumentHandler stringMethodArgumentHandler,
+                                  MethodArgumentHandler fileMethodArgumentHandler, List<String> excludedPaths) {
         this.stringMethodArgumentHandler = stringMethodArgumentHandler;
         this.fileMethodArgumentHandler = fileMethodArgumentHandler;
+        if (excludedPaths == null || excludedPaths.isEmpty()) {
+            this.excludedPathMatcher = null;
+        } else {
+            // 排除的接口路径即所有检查的接口白名单
+            List<String> paths = new ArrayList<>(excludedPaths);
+            this.excludedPathMatcher = ServletPathWhitelistMatcher.compile(paths, paths, paths);
+        }
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest servletRequest = (HttpServletRequest) request;
+        if (!requiresInspection(servletRequest)) {
+            bypassedCount.increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        // 请求进入时计算参数检查策略，之后的检查直接读取
+        stringMethodArgumentHandler.preHandle(servletRequest);
+        fileMethodArgumentHandler.preHandle(servletRequest);
         ArgumentHandlerHttpServletRequest httpServletRequest = new ArgumentHandlerHttpServletRequest(servletRequest,
                 stringMethodArgumentHandler, fileMethodArgumentHandler);
         chain.doFilter(httpServletRequest, response);
     }
 
-//    private boolean containsUriWhitelist(String requestURI) {
-//        properties.getFiles().
-//        return false;
-//    }
+    /**
+     * 判断请求是否需要包装检查，只读取请求行和请求头，不读取请求体
+     * @author chengshaozhuang
+     * @param request 请求
+     * @return boolean
+     */
+    private boolean requiresInspection(HttpServletRequest request) {
+        String queryString = request.getQueryString();
+        boolean hasInput = (queryString != null && !queryString.isEmpty()) || isFormOrMultipart(request.getContentType());
+        if (!hasInput) {
+            return false;
+        }
+        return excludedPathMatcher == null ||
+                excludedPathMatcher.match(ServletRequestUtils.getServletPath(request)) != ServletPathWhitelistMatcher.ALL;
+    }
+
+    /**
+     * 请求体是否会被解析为请求参数或者上传的文件，与请求方法无关（如PUT、PATCH的表单也会被解析）
+     */
+    private static boolean isFormOrMultipart(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        return contentType.regionMatches(true, 0, FORM_CONTENT_TYPE, 0, FORM_CONTENT_TYPE.length()) ||
+                contentType.regionMatches(true, 0, MULTIPART_CONTENT_TYPE, 0, MULTIPART_CONTENT_TYPE.length());
+    }
+
+    /**
+     * 获取无需检查、未包装直接放行的请求数量
+     * @author chengshaozhuang
+     * @return long
+     */
+    public long getBypassedCount() {
+        return bypassedCount.sum();
+    }
 
     @Override
     public void destroy() {
@@ -0,0 +1,823 @@
+package io.github.chengsean.suda.core.tika;
+
+import io.github.chengsean.suda.core.exception.DangerousFileTypeException;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 压缩包检查，不解压整个压缩包：ZIP只读取末尾的中央目录，TAR逐个读取文件头并跳过文件内容，
+ * 检查其中的文件名是否在扩展名黑名单上；之后顺序读取一遍压缩包，每个文件只解压开头部分，用于识别嵌套的压缩包。
+ * 限制文件数量、嵌套层数和压缩比，防止压缩炸弹耗尽CPU或内存
+ * @author chengshaozhuang
+ */
+final class ArchiveInspector {
+
+    private static final int ZIP_LOCAL_HEADER = 0x04034b50;
+    private static final int ZIP_CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP_END = 0x06054b50;
+    private static final int ZIP64_END_LOCATOR = 0x07064b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP_LOCAL_HEADER_LENGTH = 30;
+    private static final int ZIP_CENTRAL_HEADER_LENGTH = 46;
+    private static final int ZIP_END_LENGTH = 22;
+    private static final int ZIP_MAX_COMMENT_LENGTH = 0xffff;
+    private static final long ZIP64_MAGIC = 0xffffffffL;
+    /**
+     * 数据描述符的最大长度（可选的4字节签名加ZIP64格式的CRC和两个长度），位于设置了标志位3的文件内容之后，
+     * 小于本地文件头的长度，其中不可能藏有其他文件
+     */
+    private static final int ZIP_MAX_DATA_DESCRIPTOR_LENGTH = 24;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    /**
+     * 中央目录中每个文件预留的字节数（46字节固定部分加文件名、扩展字段），决定读取的尾部长度
+     */
+    private static final int ZIP_CENTRAL_ENTRY_BUDGET = 320;
+    /**
+     * 解压后小于该长度的文件不检查压缩比，避免内容重复的小文件被误判
+     */
+    private static final long COMPRESSION_RATIO_GRACE_SIZE = 100 * 1024;
+    private static final int TAR_BLOCK = 512;
+    /**
+     * TAR长文件名（GNU、PAX扩展头）的最大长度
+     */
+    private static final int TAR_MAX_EXTENDED_HEADER = 64 * 1024;
+    /**
+     * 识别嵌套压缩包时读取的开头长度，TAR的"ustar"位于第257个字节
+     */
+    private static final int SNIFF_LENGTH = TAR_BLOCK;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ExtensionTable extensionTable;
+    private final int maxEntries;
+    private final int maxDepth;
+    private final int maxCompressionRatio;
+
+    ArchiveInspector(ExtensionTable extensionTable, int maxEntries, int maxDepth, int maxCompressionRatio) {
+        this.extensionTable = extensionTable;
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.maxDepth = Math.max(maxDepth, 1);
+        this.maxCompressionRatio = Math.max(maxCompressionRatio, 1);
+    }
+
+    /**
+     * 文件头是否为需要检查的压缩包（ZIP或TAR）
+     * @author chengshaozhuang
+     * @param header 文件头
+     * @param length 文件头的有效长度
+     * @return boolean
+     */
+    static boolean isArchive(byte[] header, int length) {
+        return isZip(header, length) || isTar(header, length);
+    }
+
+    private static boolean isZip(byte[] header, int length) {
+        return length >= 4 && header[0] == 'P' && header[1] == 'K'
+                && ((header[2] == 3 && header[3] == 4) || (header[2] == 5 && header[3] == 6));
+    }
+
+    private static boolean isTar(byte[] header, int length) {
+        return length >= 262 && header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+    }
+
+    /**
+     * 检查压缩包，文件头不是压缩包时不检查
+     * @author chengshaozhuang
+     * @param filename 压缩包的文件名
+     * @param source 压缩包的来源，需要能多次获取输入流
+     * @param header 文件头
+     * @param length 文件头的有效长度
+     */
+    void inspect(String filename, InputStreamSource source, byte[] header, int length) throws IOException {
+        inspect(filename, source, header, length, 1);
+    }
+
+    private void inspect(String filename, InputStreamSource source, byte[] header, int length, int depth)
+            throws IOException {
+        if (isZip(header, length)) {
+            inspectZip(filename, source, depth);
+        } else if (isTar(header, length)) {
+            inspectTar(filename, source, depth);
+        }
+    }
+
+    private void inspectZip(String filename, InputStreamSource source, int depth) throws IOException {
+        Tail tail = readTail(source, (long) maxEntries * ZIP_CENTRAL_ENTRY_BUDGET + ZIP_END_LENGTH + ZIP_MAX_COMMENT_LENGTH);
+        byte[] bytes = tail.bytes;
+        int end = findZipEnd(bytes);
+        if (end < 0) {
+            // 顺序读取的解压程序不需要中央目录，仍能取出其中的文件
+            throw dangerous(filename, "it has no valid end of central directory record");
+        }
+        long entryCount = u16(bytes, end + 10);
+        long directorySize = u32(bytes, end + 12);
+        long directoryOffset = u32(bytes, end + 16);
+        int directoryEnd = end;
+        if (entryCount == 0xffff || directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC) {
+            int locator = end - 20;
+            if (locator >= 0 && i32(bytes, locator) == ZIP64_END_LOCATOR) {
+                long position = u64(bytes, locator + 8) - tail.offset;
+                if (position >= 0 && position + 56 <= locator && i32(bytes, (int) position) == ZIP64_END) {
+                    int zip64End = (int) position;
+                    entryCount = u64(bytes, zip64End + 32);
+                    directorySize = u64(bytes, zip64End + 40);
+                    directoryOffset = u64(bytes, zip64End + 48);
+                    directoryEnd = zip64End;
+                }
+            }
+        }
+        checkEntryCount(filename, entryCount);
+        if (directorySize < 0 || directorySize > directoryEnd) {
+            throw dangerous(filename, "the central directory exceeds the limit of " + maxEntries + " entries");
+        }
+        int directoryStart = directoryEnd - (int) directorySize;
+        int position = directoryStart;
+        // 压缩包前可能有其他数据，文件的偏移量需要加上其长度，这些数据在顺序读取时按未列出的数据拒绝
+        long shift = tail.offset + position - directoryOffset;
+        List<ZipEntry> entries = new ArrayList<>();
+        while (position < directoryEnd) {
+            if (position + ZIP_CENTRAL_HEADER_LENGTH > directoryEnd || i32(bytes, position) != ZIP_CENTRAL_HEADER) {
+                throw dangerous(filename, "its central directory is malformed");
+            }
+            checkEntryCount(filename, entries.size() + 1);
+            int flags = u16(bytes, position + 8);
+            int method = u16(bytes, position + 10);
+            long compressedSize = u32(bytes, position + 20);
+            long size = u32(bytes, position + 24);
+            int nameLength = u16(bytes, position + 28);
+            int extraLength = u16(bytes, position + 30);
+            int commentLength = u16(bytes, position + 32);
+            long offset = u32(bytes, position + 42);
+            int next = position + ZIP_CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+            if (next > directoryEnd) {
+                throw dangerous(filename, "its central directory is malformed");
+            }
+            Charset charset = (flags & 0x800) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+            byte[] rawName = Arrays.copyOfRange(bytes, position + ZIP_CENTRAL_HEADER_LENGTH,
+                    position + ZIP_CENTRAL_HEADER_LENGTH + nameLength);
+            String name = new String(rawName, charset);
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || offset == ZIP64_MAGIC) {
+                // ZIP64扩展字段，只包含值为0xffffffff的字段，顺序固定
+                int extra = position + ZIP_CENTRAL_HEADER_LENGTH + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = u16(bytes, extra);
+                    int dataLength = u16(bytes, extra + 2);
+                    int field = extra + 4;
+                    if (id == 0x0001) {
+                        if (size == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                            size = u64(bytes, field);
+                            field += 8;
+                        }
+                        if (compressedSize == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                            compressedSize = u64(bytes, field);
+                            field += 8;
+                        }
+                        if (offset == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                            offset = u64(bytes, field);
+                        }
+                        break;
+                    }
+                    extra += 4 + dataLength;
+                }
+            }
+            ZipEntry entry = new ZipEntry(name, rawName, method, compressedSize, size, offset + shift);
+            if (!entry.isDirectory()) {
+                checkEntryName(filename, name);
+                checkCompressionRatio(filename, entry);
+            }
+            entries.add(entry);
+            position = next;
+        }
+        if (entries.size() != entryCount) {
+            throw dangerous(filename, "its central directory is malformed");
+        }
+        sniffZipEntries(filename, source, entries, tail.offset + directoryStart, depth);
+    }
+
+    /**
+     * 顺序读取压缩包，每个文件只解压开头部分，识别嵌套的压缩包。顺序读取的解压程序（如{@code ZipInputStream}）
+     * 只看本地文件头，所以本地文件头要与中央目录一致，文件之间除数据描述符外不能有其他数据
+     * @param directoryOffset 中央目录在压缩包中的实际位置
+     */
+    private void sniffZipEntries(String filename, InputStreamSource source, List<ZipEntry> entries,
+                                 long directoryOffset, int depth) throws IOException {
+        if (entries.isEmpty()) {
+            checkZipGap(filename, directoryOffset, 0);
+            return;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.offset));
+        byte[] sniff = new byte[SNIFF_LENGTH];
+        long position = 0;
+        int descriptorLength = 0;
+        try (InputStream in = source.getInputStream()) {
+            for (ZipEntry entry : entries) {
+                if (entry.offset < position) {
+                    // 文件内容互相重叠是常见的压缩炸弹构造方式
+                    throw dangerous(filename, "it contains overlapping entries");
+                }
+                checkZipGap(filename, entry.offset - position, descriptorLength);
+                if (!skipFully(in, entry.offset - position)) {
+                    throw mismatched(filename);
+                }
+                byte[] header = readZipLocalHeader(filename, in, entry);
+                position = entry.offset + ZIP_LOCAL_HEADER_LENGTH + u16(header, 26) + u16(header, 28)
+                        + entry.compressedSize;
+                descriptorLength = (u16(header, 6) & 0x08) != 0 ? ZIP_MAX_DATA_DESCRIPTOR_LENGTH : 0;
+                if (entry.isDirectory()) {
+                    if (!skipFully(in, entry.compressedSize)) {
+                        throw mismatched(filename);
+                    }
+                    continue;
+                }
+                LimitedInputStream raw = new LimitedInputStream(in, entry.compressedSize, null, null);
+                int length = 0;
+                try (InputStream data = decode(raw, entry)) {
+                    if (data != null) {
+                        length = readFully(data, sniff, (int) Math.min(entry.size, SNIFF_LENGTH));
+                    }
+                }
+                if (!skipFully(in, raw.remaining)) {
+                    throw mismatched(filename);
+                }
+                if (isArchive(sniff, length)) {
+                    inspectNested(filename, entry.name, () -> openZipEntry(filename, source, entry),
+                            sniff, length, depth);
+                }
+            }
+        }
+        if (directoryOffset < position) {
+            throw dangerous(filename, "it contains overlapping entries");
+        }
+        checkZipGap(filename, directoryOffset - position, descriptorLength);
+    }
+
+    /**
+     * 文件之间的数据超过数据描述符的长度时，其中可能藏有中央目录中没有的本地文件头
+     * @param descriptorLength 前一个文件之后允许的数据描述符长度
+     */
+    private static void checkZipGap(String filename, long gap, int descriptorLength) {
+        if (gap > descriptorLength) {
+            throw dangerous(filename, "it contains data that is not listed in the central directory");
+        }
+    }
+
+    /**
+     * 读取本地文件头并跳过其中的文件名和扩展字段，文件名、压缩方法或者（没有数据描述符时）压缩后的长度
+     * 与中央目录不一致时抛出异常
+     * @return byte[] 本地文件头的固定部分
+     */
+    private static byte[] readZipLocalHeader(String filename, InputStream in, ZipEntry entry) throws IOException {
+        byte[] header = new byte[ZIP_LOCAL_HEADER_LENGTH];
+        if (readFully(in, header, header.length) < header.length || i32(header, 0) != ZIP_LOCAL_HEADER) {
+            throw mismatched(filename);
+        }
+        byte[] name = new byte[u16(header, 26)];
+        if (readFully(in, name, name.length) < name.length || !Arrays.equals(name, entry.rawName)
+                || u16(header, 8) != entry.method) {
+            throw mismatched(filename);
+        }
+        long compressedSize = u32(header, 18);
+        if ((u16(header, 6) & 0x08) == 0 && compressedSize != ZIP64_MAGIC && compressedSize != entry.compressedSize) {
+            throw mismatched(filename);
+        }
+        if (!skipFully(in, u16(header, 28))) {
+            throw mismatched(filename);
+        }
+        return header;
+    }
+
+    private static DangerousFileTypeException mismatched(String filename) {
+        return dangerous(filename, "its local file headers do not match the central directory");
+    }
+
+    /**
+     * 打开压缩包中的文件，解压后的长度超过声明的长度时抛出异常
+     */
+    private InputStream openZipEntry(String filename, InputStreamSource source, ZipEntry entry) throws IOException {
+        InputStream in = source.getInputStream();
+        try {
+            if (!skipFully(in, entry.offset)) {
+                throw new IOException("Unexpected end of archive '" + filename + "'");
+            }
+            readZipLocalHeader(filename, in, entry);
+            InputStream data = decode(new LimitedInputStream(in, entry.compressedSize, null, null), entry);
+            if (data == null) {
+                throw new IOException("Unsupported compression method " + entry.method + " of '" + entry.name + "'");
+            }
+            return new LimitedInputStream(data, entry.size,
+                    () -> dangerous(filename, "'" + entry.name + "' is larger than its declared size"), () -> {
+                try (InputStream ignored = in) {
+                    data.close();
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 解压文件内容，不支持的压缩方法返回{@code null}
+     */
+    @Nullable
+    private static InputStream decode(InputStream raw, ZipEntry entry) {
+        if (entry.method == STORED) {
+            return raw;
+        }
+        if (entry.method != DEFLATED) {
+            return null;
+        }
+        return new InflaterInputStream(raw, new Inflater(true), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        };
+    }
+
+    private void checkCompressionRatio(String filename, ZipEntry entry) {
+        if (entry.size > COMPRESSION_RATIO_GRACE_SIZE
+                && entry.size / (double) Math.max(entry.compressedSize, 1) > maxCompressionRatio) {
+            throw dangerous(filename, "the compression ratio of '" + entry.name + "' exceeds the limit of "
+                    + maxCompressionRatio);
+        }
+    }
+
+    private void inspectTar(String filename, InputStreamSource source, int depth) throws IOException {
+        byte[] block = new byte[TAR_BLOCK];
+        byte[] sniff = new byte[SNIFF_LENGTH];
+        int entryCount = 0;
+        String longName = null;
+        try (InputStream in = source.getInputStream()) {
+            long position = 0;
+            while (readFully(in, block, TAR_BLOCK) == TAR_BLOCK) {
+                position += TAR_BLOCK;
+                if (isZeroBlock(block)) {
+                    break;
+                }
+                long size = tarSize(block);
+                if (size < 0) {
+                    throw dangerous(filename, "it contains malformed entries");
+                }
+                long padded = (size + TAR_BLOCK - 1) / TAR_BLOCK * TAR_BLOCK;
+                byte type = block[156];
+                if (type == 'L' || type == 'x' || type == 'g') {
+                    // GNU长文件名、PAX扩展头，文件名作用于下一个文件
+                    if (size > TAR_MAX_EXTENDED_HEADER) {
+                        throw dangerous(filename, "it contains an oversized extended header");
+                    }
+                    byte[] data = new byte[(int) size];
+                    if (readFully(in, data, data.length) < data.length || !skipFully(in, padded - size)) {
+                        return;
+                    }
+                    position += padded;
+                    if (type == 'L') {
+                        longName = cString(data, 0, data.length);
+                    } else if (type == 'x') {
+                        String path = paxPath(data);
+                        longName = path != null ? path : longName;
+                    }
+                    continue;
+                }
+                checkEntryCount(filename, ++entryCount);
+                String name = longName != null ? longName : tarName(block);
+                longName = null;
+                long consumed = 0;
+                if (type != '5' && !name.endsWith("/")) {
+                    checkEntryName(filename, name);
+                }
+                if ((type == '0' || type == 0 || type == '7') && size > 0) {
+                    int length = readFully(in, sniff, (int) Math.min(size, SNIFF_LENGTH));
+                    consumed = length;
+                    if (isArchive(sniff, length)) {
+                        long dataOffset = position;
+                        inspectNested(filename, name, () -> openTarEntry(source, dataOffset, size),
+                                sniff, length, depth);
+                    }
+                }
+                if (!skipFully(in, padded - consumed)) {
+                    return;
+                }
+                position += padded;
+            }
+        }
+    }
+
+    private static InputStream openTarEntry(InputStreamSource source, long offset, long size) throws IOException {
+        InputStream in = source.getInputStream();
+        if (!skipFully(in, offset)) {
+            in.close();
+            throw new IOException("Unexpected end of archive");
+        }
+        return new LimitedInputStream(in, size, null, in);
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 文件名，ustar格式的文件名可能分为前缀和名称两部分
+     */
+    private static String tarName(byte[] block) {
+        String name = cString(block, 0, 100);
+        if (isTar(block, TAR_BLOCK) && block[345] != 0) {
+            return cString(block, 345, 155) + "/" + name;
+        }
+        return name;
+    }
+
+    /**
+     * 文件长度，八进制数字或者base-256（最高位为1）
+     * @return long 无法解析时返回-1
+     */
+    private static long tarSize(byte[] block) {
+        if ((block[124] & 0x80) != 0) {
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                if (size >>> 55 != 0) {
+                    return -1;
+                }
+                size = (size << 8) | (block[i] & 0xff);
+            }
+            return size;
+        }
+        long size = 0;
+        for (int i = 124; i < 136; i++) {
+            byte b = block[i];
+            if (b == 0 || b == ' ') {
+                if (size > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                return -1;
+            }
+            size = (size << 3) + (b - '0');
+        }
+        return size;
+    }
+
+    /**
+     * PAX扩展头中的文件名，记录格式为"长度 键=值\n"
+     */
+    @Nullable
+    private static String paxPath(byte[] data) {
+        int position = 0;
+        while (position < data.length) {
+            int space = position;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, position, space - position, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (length <= 0 || position + length > data.length) {
+                return null;
+            }
+            String record = new String(data, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            position += length;
+        }
+        return null;
+    }
+
+    private static String cString(byte[] bytes, int offset, int maxLength) {
+        int end = offset;
+        while (end < offset + maxLength && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private void inspectNested(String filename, String name, InputStreamSource source, byte[] header, int length,
+                               int depth) throws IOException {
+        if (depth >= maxDepth) {
+            throw dangerous(filename, "'" + name + "' exceeds the nesting depth limit of " + maxDepth);
+        }
+        inspect(filename, source, header, length, depth + 1);
+    }
+
+    private void checkEntryCount(String filename, long entryCount) {
+        if (entryCount < 0 || entryCount > maxEntries) {
+            throw dangerous(filename, "the number of entries exceeds the limit of " + maxEntries);
+        }
+    }
+
+    /**
+     * 检查压缩包中的文件名是否在扩展名黑名单上
+     */
+    private void checkEntryName(String filename, String name) {
+        int separator = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
+        int dot = name.lastIndexOf('.');
+        if (dot <= separator || dot == name.length() - 1) {
+            return;
+        }
+        if (extensionTable.isBlacklisted(name.substring(dot))) {
+            throw new DangerousFileTypeException("Oops!please note that '"+filename+"' contains '"+name+"' which is " +
+                    "a security risk to the system, so do not import file types such as '"+extensionTable.getBlacklistText()+"'");
+        }
+    }
+
+    private static DangerousFileTypeException dangerous(String filename, String reason) {
+        return new DangerousFileTypeException("Oops!please note that '"+filename+"' is a security risk to the system, " +
+                "because " + reason);
+    }
+
+    /**
+     * 查找ZIP的中央目录结束记录，位于末尾的注释之前
+     */
+    private static int findZipEnd(byte[] bytes) {
+        int lowest = Math.max(bytes.length - ZIP_END_LENGTH - ZIP_MAX_COMMENT_LENGTH, 0);
+        for (int i = bytes.length - ZIP_END_LENGTH; i >= lowest; i--) {
+            if (i32(bytes, i) == ZIP_END && i + ZIP_END_LENGTH + u16(bytes, i + 20) <= bytes.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 读取末尾的部分：本地文件按位置读取，其他来源读取整个输入流，只保留末尾的部分
+     */
+    private static Tail readTail(InputStreamSource source, long limit) throws IOException {
+        int capacity = (int) Math.min(limit, Integer.MAX_VALUE - 8);
+        if (source instanceof Resource && ((Resource) source).isFile()) {
+            try (FileChannel channel = FileChannel.open(((Resource) source).getFile().toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, capacity));
+                long offset = size - buffer.capacity();
+                while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                    // 读取直到缓冲区填满
+                }
+                return new Tail(Arrays.copyOf(buffer.array(), buffer.position()), offset);
+            }
+        }
+        TailBuffer tail = new TailBuffer(capacity);
+        try (InputStream in = source.getInputStream()) {
+            byte[] chunk = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                tail.write(chunk, read);
+            }
+        }
+        return tail.toTail();
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = in.read(buffer, total, length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 跳过指定的字节数
+     * @return boolean 输入流提前结束时返回{@code false}
+     */
+    private static boolean skipFully(InputStream in, long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    return false;
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+        return true;
+    }
+
+    private static int u16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    private static int i32(byte[] bytes, int offset) {
+        return u16(bytes, offset) | u16(bytes, offset + 2) << 16;
+    }
+
+    private static long u32(byte[] bytes, int offset) {
+        return i32(bytes, offset) & 0xffffffffL;
+    }
+
+    private static long u64(byte[] bytes, int offset) {
+        return u32(bytes, offset) | u32(bytes, offset + 4) << 32;
+    }
+
+    private static final class ZipEntry {
+        private final String name;
+        /**
+         * 中央目录中文件名的原始字节，用于与本地文件头比较
+         */
+        private final byte[] rawName;
+        private final int method;
+        private final long compressedSize;
+        private final long size;
+        /**
+         * 本地文件头的位置
+         */
+        private final long offset;
+
+        private ZipEntry(String name, byte[] rawName, int method, long compressedSize, long size, long offset) {
+            this.name = name;
+            this.rawName = rawName;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+
+        private boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    /**
+     * 压缩包末尾的部分
+     */
+    private static final class Tail {
+        private final byte[] bytes;
+        /**
+         * 第一个字节在压缩包中的位置
+         */
+        private final long offset;
+
+        private Tail(byte[] bytes, long offset) {
+            this.bytes = bytes;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * 只保留最后{@code capacity}个字节的环形缓冲区，按需扩容
+     */
+    private static final class TailBuffer {
+        private final int capacity;
+        private byte[] buffer = new byte[0];
+        private long total;
+
+        private TailBuffer(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void write(byte[] bytes, int length) {
+            int offset = 0;
+            if (length > capacity) {
+                offset = length - capacity;
+                total += offset;
+                length = capacity;
+            }
+            if (buffer.length < capacity) {
+                if (total + length <= capacity) {
+                    if (total + length > buffer.length) {
+                        buffer = Arrays.copyOf(buffer, (int) Math.min(capacity,
+                                Math.max(total + length, buffer.length * 2L)));
+                    }
+                    System.arraycopy(bytes, offset, buffer, (int) total, length);
+                    total += length;
+                    return;
+                }
+                buffer = Arrays.copyOf(buffer, capacity);
+            }
+            int index = (int) (total % capacity);
+            int first = Math.min(length, capacity - index);
+            System.arraycopy(bytes, offset, buffer, index, first);
+            System.arraycopy(bytes, offset + first, buffer, 0, length - first);
+            total += length;
+        }
+
+        private Tail toTail() {
+            if (total <= capacity) {
+                return new Tail(Arrays.copyOf(buffer, (int) total), 0);
+            }
+            int index = (int) (total % capacity);
+            byte[] bytes = new byte[capacity];
+            System.arraycopy(buffer, index, bytes, 0, capacity - index);
+            System.arraycopy(buffer, 0, bytes, capacity - index, index);
+            return new Tail(bytes, total - capacity);
+        }
+    }
+
+    /**
+     * 限制读取长度的输入流。超过长度时返回结束，或者仍有内容时抛出{@code overflow}提供的异常；
+     * 关闭时只关闭{@code closeable}，不关闭被限制的输入流
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+        @Nullable
+        private final Supplier<RuntimeException> overflow;
+        @Nullable
+        private final Closeable closeable;
+
+        private LimitedInputStream(InputStream in, long limit, @Nullable Supplier<RuntimeException> overflow,
+                                   @Nullable Closeable closeable) {
+            super(in);
+            this.remaining = limit;
+            this.overflow = overflow;
+            this.closeable = closeable;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                checkOverflow();
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                checkOverflow();
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            if (skipped > 0) {
+                remaining -= skipped;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void checkOverflow() throws IOException {
+            if (overflow != null && in.read() >= 0) {
+                throw overflow.get();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closeable != null) {
+                closeable.close();
+            }
+        }
+    }
+}
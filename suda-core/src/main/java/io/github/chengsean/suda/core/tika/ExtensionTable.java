@@ -0,0 +1,191 @@
+package io.github.chengsean.suda.core.tika;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.mime.MimeType;
+import org.apache.tika.mime.MimeTypeException;
+import org.apache.tika.mime.MimeTypes;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文件扩展名表，启动时预先计算每个扩展名（小写）的检查结论：在黑名单上，或者按扩展名得到的文件类型，
+ * 以及该类型的父类型（如ZIP之于DOCX），文件头检测为这些类型之一时与扩展名一致。
+ * 不可变且线程安全，扩展名黑名单变更时重新创建
+ * @author chengshaozhuang
+ */
+final class ExtensionTable {
+
+    /**
+     * 扩展名对应的文件类型为{@link MediaType#OCTET_STREAM}，即未知的扩展名
+     */
+    private static final Entry UNKNOWN = new Entry(false, MediaType.OCTET_STREAM,
+            Collections.singleton(MediaType.OCTET_STREAM));
+
+    private final String[] blacklist;
+    private final String blacklistText;
+    private final MimeTypes mimeRepository;
+    private final Map<String, Entry> mediaTypes;
+    private final Map<String, Entry> entries;
+
+    private ExtensionTable(MimeTypes mimeRepository, Map<String, Entry> mediaTypes, String[] blacklist) {
+        this.blacklist = blacklist;
+        this.blacklistText = blacklist == null ? "" : String.join(",", blacklist);
+        this.mimeRepository = mimeRepository;
+        this.mediaTypes = mediaTypes;
+        Map<String, Entry> entries = new HashMap<>(mediaTypes);
+        if (blacklist != null) {
+            for (String extension : blacklist) {
+                if (extension != null) {
+                    String key = extension.toLowerCase(Locale.ROOT);
+                    Entry entry = entries.get(key);
+                    entries.put(key, entry == null ? new Entry(true, MediaType.OCTET_STREAM,
+                            Collections.emptySet()) : new Entry(true, entry.mediaType, entry.acceptedTypes));
+                }
+            }
+        }
+        this.entries = entries;
+    }
+
+    /**
+     * 根据Tika的类型库计算所有已知扩展名的文件类型
+     * @author chengshaozhuang
+     * @param mimeRepository Tika的类型库
+     * @param blacklist 扩展名黑名单
+     * @return io.github.chengsean.suda.core.tika.ExtensionTable
+     */
+    static ExtensionTable build(MimeTypes mimeRepository, String[] blacklist) {
+        MediaTypeRegistry registry = mimeRepository.getMediaTypeRegistry();
+        Map<String, Entry> mediaTypes = new HashMap<>();
+        for (MediaType type : registry.getTypes()) {
+            MimeType mimeType;
+            try {
+                mimeType = mimeRepository.forName(type.toString());
+            } catch (MimeTypeException e) {
+                continue;
+            }
+            for (String extension : mimeType.getExtensions()) {
+                String key = extension.toLowerCase(Locale.ROOT);
+                if (!mediaTypes.containsKey(key)) {
+                    // 多个类型声明同一扩展名时，以Tika按文件名检测的结果为准
+                    mediaTypes.put(key, resolve(mimeRepository, key));
+                }
+            }
+        }
+        return new ExtensionTable(mimeRepository, Collections.unmodifiableMap(mediaTypes), blacklist);
+    }
+
+    /**
+     * 使用新的扩展名黑名单，文件类型不重新计算
+     * @author chengshaozhuang
+     * @param blacklist 扩展名黑名单
+     * @return io.github.chengsean.suda.core.tika.ExtensionTable
+     */
+    ExtensionTable withBlacklist(String[] blacklist) {
+        return new ExtensionTable(mimeRepository, mediaTypes, blacklist);
+    }
+
+    /**
+     * 是否由指定的扩展名黑名单创建（按对象标识比较）
+     * @author chengshaozhuang
+     * @param blacklist 扩展名黑名单
+     * @return boolean
+     */
+    boolean isBuiltFrom(String[] blacklist) {
+        return this.blacklist == blacklist;
+    }
+
+    /**
+     * 获取扩展名的检查结论，表中没有的扩展名由Tika按文件名检测
+     * @author chengshaozhuang
+     * @param extension 扩展名，如".pdf"
+     * @return io.github.chengsean.suda.core.tika.ExtensionTable.Entry
+     */
+    Entry get(String extension) {
+        String key = extension.toLowerCase(Locale.ROOT);
+        Entry entry = entries.get(key);
+        return entry != null ? entry : resolve(mimeRepository, key);
+    }
+
+    /**
+     * 扩展名是否在黑名单上，不检测文件类型
+     * @author chengshaozhuang
+     * @param extension 扩展名，如".jsp"
+     * @return boolean
+     */
+    boolean isBlacklisted(String extension) {
+        Entry entry = entries.get(extension.toLowerCase(Locale.ROOT));
+        return entry != null && entry.isBlacklisted();
+    }
+
+    String getBlacklistText() {
+        return blacklistText;
+    }
+
+    private static Entry resolve(MimeTypes mimeRepository, String extension) {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, extension);
+        MediaType mediaType;
+        try {
+            mediaType = mimeRepository.detect(null, metadata);
+        } catch (IOException e) {
+            return UNKNOWN;
+        }
+        if (MediaType.OCTET_STREAM.equals(mediaType)) {
+            return UNKNOWN;
+        }
+        Set<MediaType> acceptedTypes = new HashSet<>();
+        MediaTypeRegistry registry = mimeRepository.getMediaTypeRegistry();
+        for (MediaType type = mediaType; type != null; type = registry.getSupertype(type)) {
+            acceptedTypes.add(type);
+        }
+        return new Entry(false, mediaType, Collections.unmodifiableSet(acceptedTypes));
+    }
+
+    /**
+     * 扩展名的检查结论
+     */
+    static final class Entry {
+        private final boolean blacklisted;
+        private final MediaType mediaType;
+        /**
+         * 与扩展名一致的文件头类型：扩展名的文件类型及其父类型
+         */
+        private final Set<MediaType> acceptedTypes;
+
+        private Entry(boolean blacklisted, MediaType mediaType, Set<MediaType> acceptedTypes) {
+            this.blacklisted = blacklisted;
+            this.mediaType = mediaType;
+            this.acceptedTypes = acceptedTypes;
+        }
+
+        boolean isBlacklisted() {
+            return blacklisted;
+        }
+
+        /**
+         * 按扩展名得到的文件类型
+         */
+        MediaType getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * 文件头类型是否与扩展名一致
+         * @author chengshaozhuang
+         * @param detected 文件头类型
+         * @return boolean
+         */
+        boolean accepts(MediaType detected) {
+            return acceptedTypes.contains(detected);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.chengsean.suda.core.tika;
+
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 内置的文件头（Magic）检测器，覆盖常见的上传文件格式。按文件开头的签名字节构建字典树，
+ * 检测时逐字节向下查找最长的匹配，不分配内存。
+ * 签名与Tika的检测结果一致；容器格式（ZIP、RIFF）只在固定偏移处的特征能确定具体类型时给出结果，
+ * 未知的签名返回{@code null}，由{@link org.apache.tika.mime.MimeTypes}继续检测
+ * @author chengshaozhuang
+ */
+public final class MagicSignatureDetector {
+
+    private static final byte[] ZIP = bytes(0x50, 0x4B, 0x03, 0x04);
+    private static final byte[] RIFF = ascii("RIFF");
+
+    private final Node root = new Node();
+
+    public MagicSignatureDetector(MediaTypeRegistry registry) {
+        // 图片
+        add(registry, "image/jpeg", bytes(0xFF, 0xD8, 0xFF));
+        add(registry, "image/png", bytes(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A));
+        add(registry, "image/gif", ascii("GIF87a"));
+        add(registry, "image/gif", ascii("GIF89a"));
+        add(registry, "image/vnd.adobe.photoshop", ascii("8BPS\0\1"));
+        add(registry, "image/vnd.adobe.photoshop", ascii("8BPS\0\2"));
+        add(registry, "image/x-xcf", ascii("gimp xcf "));
+        Node jp2 = add(registry, null, bytes(0x00, 0x00, 0x00, 0x0C, 0x6A, 0x50, 0x20, 0x20, 0x0D, 0x0A, 0x87, 0x0A));
+        jp2.refine(20, ascii("jp2 "), normalize(registry, "image/jp2"));
+        // 文档
+        add(registry, "application/pdf", ascii("%PDF-"));
+        add(registry, "application/pdf", bytes(0xEF, 0xBB, 0xBF, 0x25, 0x50, 0x44, 0x46, 0x2D));
+        add(registry, "application/rtf", ascii("{\\rtf"));
+        add(registry, "application/x-sqlite3", ascii("SQLite format 3\0"));
+        // 压缩包
+        add(registry, "application/gzip", bytes(0x1F, 0x8B));
+        add(registry, "application/x-compress", bytes(0x1F, 0x9D));
+        for (char level = '1'; level <= '9'; level++) {
+            add(registry, "application/x-bzip2", ascii("BZh" + level));
+        }
+        add(registry, "application/x-7z-compressed", bytes(0x37, 0x7A, 0xBC, 0xAF, 0x27, 0x1C));
+        add(registry, "application/x-xz", bytes(0xFD, 0x37, 0x7A, 0x58, 0x5A, 0x00));
+        add(registry, "application/zstd", bytes(0x28, 0xB5, 0x2F, 0xFD));
+        add(registry, "application/vnd.ms-cab-compressed", ascii("MSCF\0\0\0\0"));
+        add(registry, "application/x-rpm", bytes(0xED, 0xAB, 0xEE, 0xDB));
+        // ZIP的具体类型（如ODF、EPUB、JAR）由后续的文件条目决定，只识别首个条目为OOXML特征文件的情况
+        Node zip = add(registry, null, ZIP);
+        zip.refine(30, ascii("[Content_Types].xml"), normalize(registry, "application/x-tika-ooxml"));
+        zip.refine(30, ascii("_rels/.rels"), normalize(registry, "application/x-tika-ooxml"));
+        // 音视频
+        add(registry, "audio/x-flac", ascii("fLaC"));
+        add(registry, "video/x-flv", ascii("FLV"));
+        Node riff = add(registry, null, RIFF);
+        riff.refine(8, ascii("WEBP"), normalize(registry, "image/webp"));
+        riff.refine(8, ascii("WAVE"), normalize(registry, "audio/vnd.wave"));
+        riff.refine(8, ascii("AVI "), normalize(registry, "video/x-msvideo"));
+        // 其他
+        add(registry, "application/wasm", bytes(0x00, 0x61, 0x73, 0x6D));
+        add(registry, "application/x-shockwave-flash", ascii("FWS"));
+        add(registry, "application/x-shockwave-flash", ascii("CWS"));
+    }
+
+    /**
+     * 根据文件头检测文件类型
+     * @author chengshaozhuang
+     * @param header 文件头
+     * @param length 文件头的有效长度
+     * @return org.apache.tika.mime.MediaType 未知的签名返回{@code null}
+     */
+    @Nullable
+    public MediaType detect(byte[] header, int length) {
+        Node node = root;
+        Node matched = null;
+        for (int i = 0; i < length; i++) {
+            node = node.child(header[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.terminal) {
+                matched = node;
+            }
+        }
+        return matched == null ? null : matched.resolve(header, length);
+    }
+
+    private Node add(MediaTypeRegistry registry, @Nullable String type, byte[] signature) {
+        Node node = root;
+        for (byte b : signature) {
+            node = node.getOrAddChild(b);
+        }
+        node.terminal = true;
+        node.mediaType = type == null ? null : normalize(registry, type);
+        return node;
+    }
+
+    private static MediaType normalize(MediaTypeRegistry registry, String type) {
+        return registry.normalize(MediaType.parse(type));
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 字典树节点，子节点按字节值排序，二分查找
+     */
+    private static final class Node {
+        private byte[] keys = new byte[0];
+        private Node[] children = new Node[0];
+        /**
+         * 是否为某个签名的结尾
+         */
+        private boolean terminal;
+        /**
+         * 签名对应的文件类型，为{@code null}时只按{@link #refinements}确定
+         */
+        private MediaType mediaType;
+        private Refinement[] refinements = new Refinement[0];
+
+        private Node child(byte b) {
+            int index = Arrays.binarySearch(keys, b);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node getOrAddChild(byte b) {
+            int index = Arrays.binarySearch(keys, b);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            Node child = new Node();
+            byte[] newKeys = new byte[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = b;
+            newChildren[insert] = child;
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            this.keys = newKeys;
+            this.children = newChildren;
+            return child;
+        }
+
+        private void refine(int offset, byte[] pattern, MediaType mediaType) {
+            Refinement[] newRefinements = Arrays.copyOf(refinements, refinements.length + 1);
+            newRefinements[refinements.length] = new Refinement(offset, pattern, mediaType);
+            this.refinements = newRefinements;
+        }
+
+        private MediaType resolve(byte[] header, int length) {
+            for (Refinement refinement : refinements) {
+                if (refinement.matches(header, length)) {
+                    return refinement.mediaType;
+                }
+            }
+            return mediaType;
+        }
+    }
+
+    /**
+     * 固定偏移处的特征，用于确定容器格式的具体类型
+     */
+    private static final class Refinement {
+        private final int offset;
+        private final byte[] pattern;
+        private final MediaType mediaType;
+
+        private Refinement(int offset, byte[] pattern, MediaType mediaType) {
+            this.offset = offset;
+            this.pattern = pattern;
+            this.mediaType = mediaType;
+        }
+
+        private boolean matches(byte[] header, int length) {
+            if (offset + pattern.length > length) {
+                return false;
+            }
+            for (int i = 0; i < pattern.length; i++) {
+                if (header[offset + i] != pattern[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.chengsean.suda.core.tika;
+
+import org.apache.tika.mime.MimeTypeException;
+import org.apache.tika.mime.MimeTypes;
+import org.apache.tika.mime.MimeTypesFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 文件类型检测使用的类型库
+ * @author chengshaozhuang
+ */
+public enum MimeRepositoryMode {
+
+    /**
+     * Tika完整的类型库（tika-mimetypes.xml，一千六百多种类型）
+     */
+    FULL {
+        @Override
+        public MimeTypes load() {
+            return MimeTypes.getDefaultMimeTypes();
+        }
+    },
+
+    /**
+     * 精简的类型库（suda-mimetypes.xml），只包含常见的上传文件、可执行文件和脚本的类型及其父类型，
+     * 启动更快、占用内存更少；类型库之外的扩展名和文件头都按未知类型（{@code application/octet-stream}）处理
+     */
+    MINIMAL {
+        @Override
+        public MimeTypes load() {
+            return MinimalHolder.MIME_TYPES;
+        }
+    };
+
+    private static final String MINIMAL_MIME_TYPES = "suda-mimetypes.xml";
+
+    /**
+     * 加载类型库，同一模式只加载一次
+     * @author chengshaozhuang
+     * @return org.apache.tika.mime.MimeTypes
+     */
+    public abstract MimeTypes load();
+
+    /**
+     * 首次使用时才解析精简的类型库
+     */
+    private static final class MinimalHolder {
+        private static final MimeTypes MIME_TYPES = loadMinimal();
+
+        private static MimeTypes loadMinimal() {
+            try (InputStream inputStream = MimeRepositoryMode.class.getResourceAsStream(MINIMAL_MIME_TYPES)) {
+                if (inputStream == null) {
+                    throw new IllegalStateException("Minimal MIME repository '" + MINIMAL_MIME_TYPES + "' not found");
+                }
+                return MimeTypesFactory.create(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (MimeTypeException e) {
+                throw new IllegalStateException("Failed to load minimal MIME repository", e);
+            }
+        }
+    }
+}
@@ -1,71 +1,341 @@
 package io.github.chengsean.suda.core.tika;
 
 import org.apache.tika.config.TikaConfig;
-import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MimeTypes;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import io.github.chengsean.suda.core.exception.DangerousFileTypeException;
 import io.github.chengsean.suda.core.exception.IllegalFileTypeException;
 import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
- * tika包装类，主要用于检测文件类型（MediaType）
+ * tika包装类，主要用于检测文件类型（MediaType）。
+ * 每次检测使用独立的{@link Metadata}，不共享可变状态，并发检测时无需加锁；
+ * 只读取文件头检测，不缓冲整个文件；常见格式由{@link MagicSignatureDetector}检测，其余的由Tika检测
  * @author chengshaozhuang
  */
 public class TikaWrapper {
-    private final Metadata metadata;
+    /**
+     * 文件头的最小读取长度，过短时无法识别大部分文件类型
+     */
+    private static final int MIN_SNIFF_LENGTH = 512;
+    /**
+     * 每个线程复用的文件头缓冲区，避免每次检测都分配
+     */
+    private static final ThreadLocal<byte[]> HEADER_BUFFER = new ThreadLocal<>();
     private final ArgumentHandlerProperties properties;
-    private final TikaConfig tikaConfig;
+    @Nullable
+    private volatile TikaConfig tikaConfig;
+    private final MimeTypes mimeRepository;
+    private final MagicSignatureDetector signatureDetector;
+    private volatile ExtensionTable extensionTable;
+    private volatile VerdictCache verdictCache;
 
-    public TikaWrapper(@NonNull TikaConfig tikaConfig, @NonNull Metadata metadata, @NonNull ArgumentHandlerProperties properties) {
-        this.metadata = metadata;
+    public TikaWrapper(@NonNull TikaConfig tikaConfig, @NonNull ArgumentHandlerProperties properties) {
+        this(tikaConfig, tikaConfig.getMimeRepository(), properties);
+    }
+
+    /**
+     * 使用指定的类型库检测，无需加载完整的Tika配置，如{@link MimeRepositoryMode#MINIMAL}
+     * @param mimeRepository 类型库
+     * @param properties 参数安全检查配置
+     */
+    public TikaWrapper(@NonNull MimeTypes mimeRepository, @NonNull ArgumentHandlerProperties properties) {
+        this(null, mimeRepository, properties);
+    }
+
+    private TikaWrapper(@Nullable TikaConfig tikaConfig, MimeTypes mimeRepository, ArgumentHandlerProperties properties) {
         this.properties = properties;
         this.tikaConfig = tikaConfig;
+        this.mimeRepository = mimeRepository;
+        this.signatureDetector = new MagicSignatureDetector(mimeRepository.getMediaTypeRegistry());
+        this.extensionTable = ExtensionTable.build(mimeRepository, properties.getFiles().getExtensionBlacklist());
     }
 
+    /**
+     * Class constructor.
+     * @param tikaConfig tika配置
+     * @param metadata 不再使用，共享的{@link Metadata}在并发检测时会互相覆盖文件名，导致检测结果错误
+     * @param properties 参数安全检查配置
+     * @deprecated 使用{@link #TikaWrapper(TikaConfig, ArgumentHandlerProperties)}
+     */
+    @Deprecated
+    public TikaWrapper(@NonNull TikaConfig tikaConfig, @NonNull Metadata metadata, @NonNull ArgumentHandlerProperties properties) {
+        this(tikaConfig, properties);
+    }
+
+    /**
+     * 检测文件类型，读取完成后关闭输入流。输入流只能读取一次，不检查压缩包中的文件
+     * @author chengshaozhuang
+     * @param filename 文件名
+     * @param inputStream 文件输入流
+     */
     public void checkFileType(@Nullable String filename, InputStream inputStream) throws IOException {
-        if (filename == null || !filename.contains(".") || inputStream == null) {
+        if (inputStream == null) {
             return;
         }
-        String extensionName = filename.substring(filename.lastIndexOf("."));
-        if (extensionName.equals(".")) {
+        try (InputStream in = inputStream) {
+            checkFileType(filename, () -> in, false);
+        }
+    }
+
+    /**
+     * 检测文件类型。只读取文件头（最多{@link ArgumentHandlerProperties.Files#getSniffLength()}个字节）到当前线程复用的缓冲区，
+     * 不再缓冲整个文件；文件扩展名在黑名单上时不会读取文件。
+     * 本地文件资源（{@link Resource#isFile()}）使用{@link FileChannel}按位置读取，其他来源只读取输入流的开头部分。
+     * 启用压缩包检查（{@link ArgumentHandlerProperties.Files#isArchiveInspectionEnabled()}）时，
+     * 文件头为ZIP或TAR的文件还会检查其中的文件，来源需要能多次获取输入流
+     * @author chengshaozhuang
+     * @param filename 文件名
+     * @param source 文件来源，如{@link org.springframework.web.multipart.MultipartFile}
+     */
+    public void checkFileType(@Nullable String filename, InputStreamSource source) throws IOException {
+        checkFileType(filename, source, true);
+    }
+
+    /**
+     * 只检测文件头，不检查压缩包中的文件，用于只能获取到文件头的场景
+     * @author chengshaozhuang
+     * @param filename 文件名
+     * @param source 文件头的来源
+     */
+    public void checkFileHeader(@Nullable String filename, InputStreamSource source) throws IOException {
+        checkFileType(filename, source, false);
+    }
+
+    /**
+     * 只检查压缩包中的文件，不是压缩包或者未启用压缩包检查时直接返回
+     * @author chengshaozhuang
+     * @param filename 文件名
+     * @param source 文件来源，需要能多次获取输入流
+     */
+    public void checkArchive(@Nullable String filename, InputStreamSource source) throws IOException {
+        if (source == null || !properties.getFiles().isArchiveInspectionEnabled() || getExtensionName(filename) == null) {
             return;
         }
-        // 检查文件类型（扩展名）黑名单
-        String[] blacklist = properties.getFiles().getExtensionBlacklist();
-        List<String> blackList = Arrays.asList(Optional.ofNullable(blacklist).orElse(new String[0]));
-        if (blackList.contains(extensionName)) {
-            String fileExtensions = String.join(",", blackList);
-            throw new DangerousFileTypeException("Oops!please note that '"+filename+"' is a security risk to the system, " +
-                    "so do not import file types such as '"+fileExtensions+"'");
+        byte[] header = headerBuffer();
+        inspectArchive(filename, source, header, readHeader(source, header));
+    }
+
+    private void checkFileType(@Nullable String filename, InputStreamSource source, boolean archive) throws IOException {
+        if (source == null) {
+            return;
         }
-        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, extensionName);
-        MimeTypes mimeRepository = tikaConfig.getMimeRepository();
-        MediaType mediaType;
-        // 转换为支持mark和reset方法的输入流：BufferedInputStream
-        try (TikaInputStream bis = TikaInputStream.get(inputStream)) {
-            // 根据文件Magic获取的MimeType
-            mediaType = mimeRepository.detect(bis, metadata);
-        }
-        if (mediaType.equals(MediaType.OCTET_STREAM)) {
+        String extensionName = getExtensionName(filename);
+        if (extensionName == null) {
+            return;
+        }
+        ExtensionTable.Entry extension = checkExtension(filename, extensionName);
+        byte[] header = headerBuffer();
+        int length = readHeader(source, header);
+        checkMediaType(filename, extensionName, extension, header, length);
+        if (archive && properties.getFiles().isArchiveInspectionEnabled()) {
+            inspectArchive(filename, source, header, length);
+        }
+    }
+
+    /**
+     * 检查压缩包中的文件名和压缩包的结构，结论与文件头无关，不使用文件类型检测结论缓存
+     * @author chengshaozhuang
+     * @param filename 文件名
+     * @param source 文件来源
+     * @param header 文件头
+     * @param length 文件头的有效长度
+     */
+    private void inspectArchive(String filename, InputStreamSource source, byte[] header, int length) throws IOException {
+        if (!ArchiveInspector.isArchive(header, length)) {
+            return;
+        }
+        ArgumentHandlerProperties.Files files = properties.getFiles();
+        new ArchiveInspector(extensionTable(), files.getArchiveMaxEntries(), files.getArchiveMaxDepth(),
+                files.getArchiveMaxCompressionRatio()).inspect(filename, source, header, length);
+    }
+
+    private void checkMediaType(String filename, String extensionName, ExtensionTable.Entry extension,
+                                byte[] header, int length) throws IOException {
+        // 常见格式先由内置的签名检测，与扩展名一致时无需再经过Tika
+        MediaType signature = signatureDetector.detect(header, length);
+        if (signature != null && extension.accepts(signature)) {
+            return;
+        }
+        // 相同的文件头和扩展名已经检测通过
+        VerdictCache cache = getVerdictCache();
+        long hash = cache != null ? VerdictCache.hash(header, length) : 0L;
+        if (cache != null && cache.isAccepted(extensionName, hash, header, length)) {
             return;
         }
-        // 根据文件扩展名获取的MimeType
-        MediaType mediaTypeByExtension = mimeRepository.detect(null, metadata);
-        // 检查文件扩展名是否被篡改
-        if (!mediaType.equals(mediaTypeByExtension)) {
+        // 每次检测使用独立的Metadata，避免并发检测时互相覆盖
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, extensionName);
+        // 根据文件Magic获取的MimeType，ByteArrayInputStream支持mark和reset方法
+        MediaType mediaType = mimeRepository.detect(new ByteArrayInputStream(header, 0, length), metadata);
+        // 检查文件扩展名是否被篡改，根据文件扩展名获取的MimeType已预先计算
+        if (!mediaType.equals(MediaType.OCTET_STREAM) && !mediaType.equals(extension.getMediaType())) {
             throw new IllegalFileTypeException("Oops! please note that '"+filename+"' extension has been tampered with");
         }
+        if (cache != null) {
+            cache.accept(extensionName, hash, header, length);
+        }
+    }
+
+    /**
+     * 获取文件类型检测结论缓存，未启用时返回{@code null}，缓存配置变更时重新创建
+     * @author chengshaozhuang
+     * @return io.github.chengsean.suda.core.tika.VerdictCache
+     */
+    @Nullable
+    public VerdictCache getVerdictCache() {
+        ArgumentHandlerProperties.Files files = properties.getFiles();
+        if (!files.isVerdictCacheEnabled() || files.getVerdictCacheTtl() == null) {
+            return null;
+        }
+        VerdictCache cache = this.verdictCache;
+        if (cache == null || !cache.isBuiltFrom(files.getVerdictCacheSize(), files.getVerdictCacheTtl())) {
+            synchronized (this) {
+                cache = this.verdictCache;
+                if (cache == null || !cache.isBuiltFrom(files.getVerdictCacheSize(), files.getVerdictCacheTtl())) {
+                    cache = new VerdictCache(files.getVerdictCacheSize(), files.getVerdictCacheTtl());
+                    this.verdictCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 检查文件扩展名是否在黑名单上，不读取文件内容
+     * @author chengshaozhuang
+     * @param filename 文件名
+     */
+    public void checkExtension(@Nullable String filename) {
+        String extensionName = getExtensionName(filename);
+        if (extensionName != null) {
+            checkExtension(filename, extensionName);
+        }
+    }
+
+    private ExtensionTable.Entry checkExtension(String filename, String extensionName) {
+        // 检查文件类型（扩展名）黑名单
+        ExtensionTable table = extensionTable();
+        ExtensionTable.Entry extension = table.get(extensionName);
+        if (extension.isBlacklisted()) {
+            throw new DangerousFileTypeException("Oops!please note that '"+filename+"' is a security risk to the system, " +
+                    "so do not import file types such as '"+table.getBlacklistText()+"'");
+        }
+        return extension;
+    }
+
+    @Nullable
+    private static String getExtensionName(@Nullable String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return null;
+        }
+        String extensionName = filename.substring(filename.lastIndexOf("."));
+        return extensionName.equals(".") ? null : extensionName;
+    }
+
+    /**
+     * 获取扩展名表，扩展名黑名单变更时重新创建
+     * @author chengshaozhuang
+     * @return io.github.chengsean.suda.core.tika.ExtensionTable
+     */
+    private ExtensionTable extensionTable() {
+        String[] blacklist = properties.getFiles().getExtensionBlacklist();
+        ExtensionTable table = this.extensionTable;
+        if (!table.isBuiltFrom(blacklist)) {
+            table = table.withBlacklist(blacklist);
+            this.extensionTable = table;
+        }
+        return table;
     }
 
+    /**
+     * 获取当前线程的文件头缓冲区，配置的长度变化时重新分配
+     * @author chengshaozhuang
+     * @return byte[]
+     */
+    private byte[] headerBuffer() {
+        int sniffLength = getSniffLength();
+        byte[] buffer = HEADER_BUFFER.get();
+        if (buffer == null || buffer.length != sniffLength) {
+            buffer = new byte[sniffLength];
+            HEADER_BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * 读取文件头到缓冲区
+     * @author chengshaozhuang
+     * @param source 文件来源
+     * @param buffer 缓冲区
+     * @return int 读取的字节数
+     */
+    private static int readHeader(InputStreamSource source, byte[] buffer) throws IOException {
+        if (source instanceof Resource && ((Resource) source).isFile()) {
+            try (FileChannel channel = FileChannel.open(((Resource) source).getFile().toPath(), StandardOpenOption.READ)) {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                long position = 0;
+                while (byteBuffer.hasRemaining()) {
+                    int read = channel.read(byteBuffer, position);
+                    if (read < 0) {
+                        break;
+                    }
+                    position += read;
+                }
+                return byteBuffer.position();
+            }
+        }
+        try (InputStream inputStream = source.getInputStream()) {
+            int length = 0;
+            while (length < buffer.length) {
+                int read = inputStream.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * 检测文件类型时读取的文件头长度，未配置时使用类型库的检测长度（{@link MimeTypes#getMinLength()}），
+     * 与Tika直接检测的结果一致
+     * @author chengshaozhuang
+     * @return int
+     */
+    public int getSniffLength() {
+        int sniffLength = properties.getFiles().getSniffLength();
+        if (sniffLength <= 0) {
+            sniffLength = mimeRepository.getMinLength();
+        }
+        return Math.max(sniffLength, MIN_SNIFF_LENGTH);
+    }
+
+    /**
+     * 获取Tika配置，使用指定的类型库创建时首次调用才加载默认配置，其类型库与检测使用的类型库不同
+     * @author chengshaozhuang
+     * @return org.apache.tika.config.TikaConfig
+     */
+    public TikaConfig getTikaConfig() {
+        TikaConfig config = this.tikaConfig;
+        if (config == null) {
+            config = TikaConfig.getDefaultConfig();
+            this.tikaConfig = config;
+        }
+        return config;
+    }
 }
@@ -0,0 +1,177 @@
+package io.github.chengsean.suda.core.tika;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文件类型检测结论缓存，只缓存检测通过的结论。文件类型只由文件头和扩展名决定，
+ * 按文件头的哈希值和扩展名查找，命中时再比较保存的文件头，哈希冲突不会导致误判。
+ * 按数量（最近最少使用）和有效期淘汰，线程安全
+ * @author chengshaozhuang
+ */
+public final class VerdictCache {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final long ttlNanos;
+    private final Map<Key, Long> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    VerdictCache(int maxSize, Duration ttl) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.ttl = ttl;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<Key, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+                if (size() > VerdictCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 计算文件头的哈希值（FNV-1a）
+     * @author chengshaozhuang
+     * @param header 文件头
+     * @param length 文件头的有效长度
+     * @return long
+     */
+    static long hash(byte[] header, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < length; i++) {
+            hash ^= header[i] & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 文件头和扩展名是否已经检测通过
+     * @author chengshaozhuang
+     * @param extension 扩展名
+     * @param hash 文件头的哈希值
+     * @param header 文件头
+     * @param length 文件头的有效长度
+     * @return boolean
+     */
+    boolean isAccepted(String extension, long hash, byte[] header, int length) {
+        Key key = new Key(extension, hash, header, length, false);
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Long createdAt = entries.get(key);
+            if (createdAt != null) {
+                if (now - createdAt < ttlNanos) {
+                    hits.increment();
+                    return true;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * 记录检测通过的文件头和扩展名
+     * @author chengshaozhuang
+     * @param extension 扩展名
+     * @param hash 文件头的哈希值
+     * @param header 文件头，会被复制
+     * @param length 文件头的有效长度
+     */
+    void accept(String extension, long hash, byte[] header, int length) {
+        Key key = new Key(extension, hash, header, length, true);
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.put(key, now);
+        }
+    }
+
+    boolean isBuiltFrom(int maxSize, Duration ttl) {
+        return this.maxSize == Math.max(maxSize, 1) && this.ttl.equals(ttl);
+    }
+
+    /**
+     * 命中次数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 未命中次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 因数量或有效期淘汰的次数
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 缓存的键：扩展名、文件头的哈希值和文件头
+     */
+    private static final class Key {
+        private final String extension;
+        private final long hash;
+        private final byte[] header;
+        private final int length;
+
+        private Key(String extension, long hash, byte[] header, int length, boolean copy) {
+            this.extension = extension;
+            this.hash = hash;
+            this.header = copy ? Arrays.copyOf(header, length) : header;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            if (hash != other.hash || length != other.length || !extension.equals(other.extension)) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (header[i] != other.header[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash) * 31 + extension.hashCode();
+        }
+    }
+}
@@ -13,6 +13,8 @@ import java.util.Objects;
  */
 public abstract class ServletRequestUtils {
 
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
     public static String getServletPath(@NonNull HttpServletRequest request) {
         String servletPath = Objects.requireNonNull(request).getServletPath();
         return StringUtils.isNotBlank(servletPath) ? servletPath : request.getRequestURI();
@@ -22,9 +24,8 @@ public abstract class ServletRequestUtils {
         if (servletPathWhitelist == null || servletPath == null) {
             return true;
         }
-        AntPathMatcher matcher = new AntPathMatcher();
         for (String url : servletPathWhitelist) {
-            boolean match = Objects.nonNull(url) && matcher.match(url, servletPath);
+            boolean match = Objects.nonNull(url) && PATH_MATCHER.match(url, servletPath);
             if (match) {
                 return false;
             }
@@ -1,7 +1,6 @@
 package io.github.chengsean.suda.autoconfigure;
 
 import org.apache.tika.config.TikaConfig;
-import org.apache.tika.metadata.Metadata;
 import org.springframework.beans.BeanUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -12,6 +11,7 @@ import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
 import io.github.chengsean.suda.core.handler.FileMethodArgumentHandler;
 import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
 import io.github.chengsean.suda.core.handler.StringMethodArgumentHandler;
+import io.github.chengsean.suda.core.tika.MimeRepositoryMode;
 import io.github.chengsean.suda.core.tika.TikaWrapper;
 import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -46,9 +46,13 @@ public class ArgumentHandlerConfiguration {
     }
 
     private TikaWrapper tikaWrapper() {
+        ArgumentHandlerProperties properties = cloneProperties();
+        if (properties.getFiles().getMimeRepository() == MimeRepositoryMode.MINIMAL) {
+            // 精简的类型库无需加载完整的Tika配置
+            return new TikaWrapper(MimeRepositoryMode.MINIMAL.load(), properties);
+        }
         TikaConfig tikaConfig = TikaConfig.getDefaultConfig();
-        Metadata metadata = new Metadata();
-        return new TikaWrapper(tikaConfig, metadata, cloneProperties());
+        return new TikaWrapper(tikaConfig, properties);
     }
 
     private ArgumentHandlerProperties cloneProperties() {
@@ -57,6 +61,8 @@ public class ArgumentHandlerConfiguration {
         BeanUtils.copyProperties(this.properties.getXssAttack(), properties.getXssAttack());
         BeanUtils.copyProperties(this.properties.getSqlInject(), properties.getSqlInject());
         BeanUtils.copyProperties(this.properties.getFiles(), properties.getFiles());
+        // 启动时编译接口白名单
+        properties.getServletPathWhitelistMatcher();
         return properties;
     }
 }
@@ -4,6 +4,7 @@ import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
 import io.github.chengsean.suda.core.resolver.request.ArgumentResolverFilter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,21 +14,26 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 @ConditionalOnBean({MethodArgumentHandler.class})
+@EnableConfigurationProperties(value = {SudaProperties.class})
 public class ArgumentHandlerFilterConfiguration {
 
     private final MethodArgumentHandler stringMethodArgumentHandler;
     private final MethodArgumentHandler fileMethodArgumentHandler;
+    private final SudaProperties properties;
 
     public ArgumentHandlerFilterConfiguration(MethodArgumentHandler stringMethodArgumentHandler,
-                                              MethodArgumentHandler fileMethodArgumentHandler) {
+                                              MethodArgumentHandler fileMethodArgumentHandler,
+                                              SudaProperties properties) {
         this.stringMethodArgumentHandler = stringMethodArgumentHandler;
         this.fileMethodArgumentHandler = fileMethodArgumentHandler;
+        this.properties = properties;
     }
 
 
     @Bean
     @ConditionalOnMissingBean(value = ArgumentResolverFilter.class)
     public ArgumentResolverFilter argumentHandlerFilter() {
-        return new ArgumentResolverFilter(stringMethodArgumentHandler, fileMethodArgumentHandler);
+        return new ArgumentResolverFilter(stringMethodArgumentHandler, fileMethodArgumentHandler,
+                properties.getFilter().getExcludedPaths());
     }
 }
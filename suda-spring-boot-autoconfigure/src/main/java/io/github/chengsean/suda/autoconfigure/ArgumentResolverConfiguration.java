@@ -3,13 +3,18 @@ package io.github.chengsean.suda.autoconfigure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.KotlinDetector;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.annotation.ErrorsMethodArgumentResolver;
 import org.springframework.web.method.annotation.ExpressionValueMethodArgumentResolver;
 import org.springframework.web.method.annotation.MapMethodProcessor;
@@ -27,12 +32,18 @@ import org.springframework.web.servlet.mvc.method.annotation.PathVariableMapMeth
 import org.springframework.web.servlet.mvc.method.annotation.PrincipalMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.RedirectAttributesMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.RequestAttributeMethodArgumentResolver;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.servlet.mvc.method.annotation.ServletCookieValueMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.ServletRequestMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.ServletResponseMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.SessionAttributeMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.UriComponentsBuilderMethodArgumentResolver;
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import io.github.chengsean.suda.core.handler.FileMethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.StringMethodArgumentHandler;
+import io.github.chengsean.suda.core.resolver.ArgumentInspectionPlanRegistry;
 import io.github.chengsean.suda.core.resolver.SecurityMatrixVariableMapMethodArgumentResolver;
 import io.github.chengsean.suda.core.resolver.SecurityMatrixVariableMethodArgumentResolver;
 import io.github.chengsean.suda.core.resolver.SecurityPathVariableMethodArgumentResolver;
@@ -42,9 +53,11 @@ import io.github.chengsean.suda.core.resolver.SecurityRequestPartMethodArgumentR
 import io.github.chengsean.suda.core.resolver.SecurityRequestResponseBodyMethodProcessor;
 import io.github.chengsean.suda.core.resolver.SecurityServletModelAttributeMethodProcessor;
 import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.jackson.SudaJacksonModule;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 参数安全检查配置
@@ -65,6 +78,7 @@ public class ArgumentResolverConfiguration {
     }
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final List<Object> requestResponseBodyAdvice = new ArrayList<>();
+    private final ArgumentInspectionPlanRegistry planRegistry = new ArgumentInspectionPlanRegistry();
     private final RequestMappingHandlerAdapter adapter;
     private final ArgumentResolverBeanFactory argumentResolverBeanFactory;
     private final MethodArgumentHandler stringMethodArgumentHandler;
@@ -96,8 +110,9 @@ public class ArgumentResolverConfiguration {
 
         // Annotation-based argument resolution
         resolvers.add(new SecurityRequestParamMethodArgumentResolver(getBeanFactory(), false, stringMethodArgumentHandler,
-                fileMethodArgumentHandler));
-        resolvers.add(new SecurityRequestParamMapMethodArgumentResolver(stringMethodArgumentHandler, fileMethodArgumentHandler));
+                fileMethodArgumentHandler, planRegistry));
+        resolvers.add(new SecurityRequestParamMapMethodArgumentResolver(stringMethodArgumentHandler, fileMethodArgumentHandler,
+                planRegistry));
         resolvers.add(new SecurityPathVariableMethodArgumentResolver(stringMethodArgumentHandler));
         resolvers.add(new PathVariableMapMethodArgumentResolver());
         // 功能暂不支持(Not at this time)
@@ -105,7 +120,7 @@ public class ArgumentResolverConfiguration {
         resolvers.add(new SecurityMatrixVariableMethodArgumentResolver(stringMethodArgumentHandler));
         resolvers.add(new SecurityMatrixVariableMapMethodArgumentResolver(stringMethodArgumentHandler));
         resolvers.add(new SecurityServletModelAttributeMethodProcessor(false, stringMethodArgumentHandler));
-        resolvers.add(new SecurityRequestResponseBodyMethodProcessor(adapter.getMessageConverters(),
+        resolvers.add(new SecurityRequestResponseBodyMethodProcessor(getRequestBodyMessageConverters(),
                 requestResponseBodyAdvice, stringMethodArgumentHandler));
         resolvers.add(new SecurityRequestPartMethodArgumentResolver(adapter.getMessageConverters(), requestResponseBodyAdvice,
                 fileMethodArgumentHandler));
@@ -138,12 +153,46 @@ public class ArgumentResolverConfiguration {
         // Catch-all
         resolvers.add(new PrincipalMethodArgumentResolver());
         resolvers.add(new SecurityRequestParamMethodArgumentResolver(getBeanFactory(), true, stringMethodArgumentHandler,
-                fileMethodArgumentHandler));
+                fileMethodArgumentHandler, planRegistry));
         resolvers.add(new SecurityServletModelAttributeMethodProcessor(true, stringMethodArgumentHandler));
 
         return resolvers;
     }
 
+    /**
+     * 启动完成后为所有请求处理方法的参数预先计算检查计划，并预热不含通配符的接口路径的白名单匹配结果
+     * @author chengshaozhuang
+     * @param handlerMappings 请求映射
+     * @return org.springframework.beans.factory.SmartInitializingSingleton
+     */
+    @Bean
+    public SmartInitializingSingleton argumentInspectionPlanInitializer(
+            ObjectProvider<RequestMappingHandlerMapping> handlerMappings) {
+        return () -> handlerMappings.orderedStream().forEach(handlerMapping -> {
+            Map<RequestMappingInfo, HandlerMethod> handlerMethods = handlerMapping.getHandlerMethods();
+            planRegistry.precompute(handlerMethods.values());
+            for (RequestMappingInfo mappingInfo : handlerMethods.keySet()) {
+                for (String path : mappingInfo.getDirectPaths()) {
+                    warmUpWhitelist(stringMethodArgumentHandler, path);
+                    warmUpWhitelist(fileMethodArgumentHandler, path);
+                }
+            }
+            logger.info("already precompute the inspection plans of {} method parameters", planRegistry.size());
+        });
+    }
+
+    private void warmUpWhitelist(MethodArgumentHandler handler, String path) {
+        ArgumentHandlerProperties properties = null;
+        if (handler instanceof StringMethodArgumentHandler) {
+            properties = ((StringMethodArgumentHandler) handler).getProperties();
+        } else if (handler instanceof FileMethodArgumentHandler) {
+            properties = ((FileMethodArgumentHandler) handler).getProperties();
+        }
+        if (properties != null) {
+            properties.getServletPathWhitelistMatcher().match(path);
+        }
+    }
+
     private void initRequestResponseBodyAdvice() {
         if (jackson2Present) {
             requestResponseBodyAdvice.add(new JsonViewRequestBodyAdvice());
@@ -151,6 +200,20 @@ public class ArgumentResolverConfiguration {
         }
     }
 
+    /**
+     * 存在Jackson组件并且启用了Jackson字符串检查模块时，请求体的JSON字符串在反序列化的同时完成检查，
+     * 否则在反序列化完成后遍历参数对象检查
+     * @author chengshaozhuang
+     * @return java.util.List
+     */
+    private List<HttpMessageConverter<?>> getRequestBodyMessageConverters() {
+        if (jackson2Present && stringMethodArgumentHandler instanceof StringMethodArgumentHandler &&
+                ((StringMethodArgumentHandler) stringMethodArgumentHandler).getProperties().getChars().isJacksonModuleEnabled()) {
+            return SudaJacksonModule.registerTo(adapter.getMessageConverters(), stringMethodArgumentHandler);
+        }
+        return adapter.getMessageConverters();
+    }
+
     @Nullable
     private ConfigurableBeanFactory getBeanFactory() {
         BeanFactory beanFactory = argumentResolverBeanFactory.getInstance();
@@ -0,0 +1,67 @@
+package io.github.chengsean.suda.autoconfigure;
+
+import io.github.chengsean.suda.core.handler.FileMethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.multipart.SecurityStreamingMultipartResolver;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.nio.file.Paths;
+
+/**
+ * 流式解析multipart请求的配置，启用（suda.io.files.streaming-enabled=true）后替代容器解析multipart请求，
+ * 在接收请求体的同时检查文件。文件大小等限制沿用spring.servlet.multipart的配置
+ * @author chengshaozhuang
+ */
+@Configuration
+@AutoConfigureAfter(ArgumentHandlerConfiguration.class)
+@AutoConfigureBefore(MultipartAutoConfiguration.class)
+@ConditionalOnBean({MethodArgumentHandler.class})
+@ConditionalOnProperty(prefix = "suda.io.files", name = "streaming-enabled", havingValue = "true")
+@EnableConfigurationProperties(MultipartProperties.class)
+public class StreamingMultipartConfiguration {
+
+    private final MethodArgumentHandler stringMethodArgumentHandler;
+    private final MethodArgumentHandler fileMethodArgumentHandler;
+    private final MultipartProperties multipartProperties;
+
+    public StreamingMultipartConfiguration(MethodArgumentHandler stringMethodArgumentHandler,
+                                           MethodArgumentHandler fileMethodArgumentHandler,
+                                           MultipartProperties multipartProperties) {
+        this.stringMethodArgumentHandler = stringMethodArgumentHandler;
+        this.fileMethodArgumentHandler = fileMethodArgumentHandler;
+        this.multipartProperties = multipartProperties;
+    }
+
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    @ConditionalOnMissingBean(MultipartResolver.class)
+    @ConditionalOnProperty(prefix = "spring.servlet.multipart", name = "enabled", matchIfMissing = true)
+    public MultipartResolver multipartResolver() {
+        if (!(fileMethodArgumentHandler instanceof FileMethodArgumentHandler)) {
+            throw new IllegalStateException("Streaming multipart checks require an instance of '" +
+                    FileMethodArgumentHandler.class.getName() + "'");
+        }
+        FileMethodArgumentHandler handler = (FileMethodArgumentHandler) fileMethodArgumentHandler;
+        SecurityStreamingMultipartResolver resolver =
+                new SecurityStreamingMultipartResolver(handler.getProperties(), handler.getTikaWrapper(),
+                        stringMethodArgumentHandler);
+        resolver.setMaxFileSize(multipartProperties.getMaxFileSize().toBytes());
+        resolver.setMaxRequestSize(multipartProperties.getMaxRequestSize().toBytes());
+        resolver.setFileSizeThreshold((int) multipartProperties.getFileSizeThreshold().toBytes());
+        if (StringUtils.hasText(multipartProperties.getLocation())) {
+            resolver.setLocation(Paths.get(multipartProperties.getLocation()));
+        }
+        return resolver;
+    }
+}
@@ -2,8 +2,11 @@ package io.github.chengsean.suda.autoconfigure;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import io.github.chengsean.suda.core.handler.InspectorEngine;
+import io.github.chengsean.suda.core.tika.MimeRepositoryMode;
 import io.github.chengsean.suda.core.util.StringUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,6 +21,8 @@ public class SudaProperties {
     private final SQLInject sqlInject = new SQLInject();
     private final Chars chars = new Chars();
     private final Files files = new Files();
+    private final WarmUp warmUp = new WarmUp();
+    private final Filter filter = new Filter();
 
     public XSSAttack getXssAttack() {
         return xssAttack;
@@ -35,16 +40,34 @@ public class SudaProperties {
         return files;
     }
 
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
     public boolean hasBeenCustomized() {
         return this.chars.hasBeenCustomized() ||
                 this.sqlInject.hasBeenCustomized() ||
                 this.xssAttack.hasBeenCustomized() ||
-                this.files.hasBeenCustomized();
+                this.files.hasBeenCustomized() ||
+                this.warmUp.hasBeenCustomized() ||
+                this.filter.hasBeenCustomized();
     }
 
     public static class Chars {
         // 是否对字符串去空格
         private boolean trimEnabled = true;
+        // 字符串检查引擎
+        private InspectorEngine inspectorEngine = InspectorEngine.STANDARD;
+        // 检查对象入参时，嵌套对象的最大遍历深度（0表示只检查对象自身的字符串属性）
+        private int objectGraphMaxDepth = 16;
+        // 检查对象入参时，最多遍历的对象（包括集合、数组）数量
+        private int objectGraphMaxNodes = 10000;
+        // 是否注册Jackson字符串检查模块，在反序列化请求体的同时检查JSON字符串，默认不启用
+        private boolean jacksonModuleEnabled = false;
 
         private boolean customized = false;
 
@@ -57,6 +80,42 @@ public class SudaProperties {
             this.customized = true;
         }
 
+        public InspectorEngine getInspectorEngine() {
+            return inspectorEngine;
+        }
+
+        public void setInspectorEngine(InspectorEngine inspectorEngine) {
+            this.inspectorEngine = inspectorEngine;
+            this.customized = true;
+        }
+
+        public int getObjectGraphMaxDepth() {
+            return objectGraphMaxDepth;
+        }
+
+        public void setObjectGraphMaxDepth(int objectGraphMaxDepth) {
+            this.objectGraphMaxDepth = objectGraphMaxDepth;
+            this.customized = true;
+        }
+
+        public int getObjectGraphMaxNodes() {
+            return objectGraphMaxNodes;
+        }
+
+        public void setObjectGraphMaxNodes(int objectGraphMaxNodes) {
+            this.objectGraphMaxNodes = objectGraphMaxNodes;
+            this.customized = true;
+        }
+
+        public boolean isJacksonModuleEnabled() {
+            return jacksonModuleEnabled;
+        }
+
+        public void setJacksonModuleEnabled(boolean jacksonModuleEnabled) {
+            this.jacksonModuleEnabled = jacksonModuleEnabled;
+            this.customized = true;
+        }
+
         public boolean hasBeenCustomized() {
             return customized;
         }
@@ -143,6 +202,30 @@ public class SudaProperties {
 
     public static class Files {
         private boolean checkEnabled = false;
+        // 检测文件类型时最多读取的文件头字节数，不大于0时与Tika类型库的检测长度一致（64KB）
+        private int sniffLength = 0;
+        // 多个文件是否并行检查
+        private boolean parallelEnabled = false;
+        // 并行检查文件时单个请求最多同时检查的文件数
+        private int parallelism = 4;
+        // 是否在解析multipart请求时流式检查文件
+        private boolean streamingEnabled = false;
+        // 是否缓存文件类型检测通过的结论
+        private boolean verdictCacheEnabled = false;
+        // 文件类型检测结论缓存的最大数量
+        private int verdictCacheSize = 1024;
+        // 文件类型检测结论缓存的有效期
+        private Duration verdictCacheTtl = Duration.ofMinutes(10);
+        // 是否检查压缩包（ZIP、TAR）中的文件
+        private boolean archiveInspectionEnabled = false;
+        // 压缩包中最多的文件数量
+        private int archiveMaxEntries = 1000;
+        // 压缩包最多的嵌套层数（包括最外层）
+        private int archiveMaxDepth = 3;
+        // 压缩包中文件的最大压缩比
+        private int archiveMaxCompressionRatio = 100;
+        // 文件类型检测使用的类型库
+        private MimeRepositoryMode mimeRepository = MimeRepositoryMode.FULL;
         private boolean customized = false;
         private List<String> servletPathWhitelist = new ArrayList<>();
         private String[] extensionBlacklist = new String[]{".bat,",".cmd,",".vbs,",".sh,",".java,",
@@ -175,6 +258,186 @@ public class SudaProperties {
             this.customized = true;
         }
 
+        public int getSniffLength() {
+            return sniffLength;
+        }
+
+        public void setSniffLength(int sniffLength) {
+            this.sniffLength = sniffLength;
+            this.customized = true;
+        }
+
+        public boolean isParallelEnabled() {
+            return parallelEnabled;
+        }
+
+        public void setParallelEnabled(boolean parallelEnabled) {
+            this.parallelEnabled = parallelEnabled;
+            this.customized = true;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            this.customized = true;
+        }
+
+        public boolean isStreamingEnabled() {
+            return streamingEnabled;
+        }
+
+        public void setStreamingEnabled(boolean streamingEnabled) {
+            this.streamingEnabled = streamingEnabled;
+            this.customized = true;
+        }
+
+        public boolean isVerdictCacheEnabled() {
+            return verdictCacheEnabled;
+        }
+
+        public void setVerdictCacheEnabled(boolean verdictCacheEnabled) {
+            this.verdictCacheEnabled = verdictCacheEnabled;
+            this.customized = true;
+        }
+
+        public int getVerdictCacheSize() {
+            return verdictCacheSize;
+        }
+
+        public void setVerdictCacheSize(int verdictCacheSize) {
+            this.verdictCacheSize = verdictCacheSize;
+            this.customized = true;
+        }
+
+        public Duration getVerdictCacheTtl() {
+            return verdictCacheTtl;
+        }
+
+        public void setVerdictCacheTtl(Duration verdictCacheTtl) {
+            this.verdictCacheTtl = verdictCacheTtl;
+            this.customized = true;
+        }
+
+        public boolean isArchiveInspectionEnabled() {
+            return archiveInspectionEnabled;
+        }
+
+        public void setArchiveInspectionEnabled(boolean archiveInspectionEnabled) {
+            this.archiveInspectionEnabled = archiveInspectionEnabled;
+            this.customized = true;
+        }
+
+        public int getArchiveMaxEntries() {
+            return archiveMaxEntries;
+        }
+
+        public void setArchiveMaxEntries(int archiveMaxEntries) {
+            this.archiveMaxEntries = archiveMaxEntries;
+            this.customized = true;
+        }
+
+        public int getArchiveMaxDepth() {
+            return archiveMaxDepth;
+        }
+
+        public void setArchiveMaxDepth(int archiveMaxDepth) {
+            this.archiveMaxDepth = archiveMaxDepth;
+            this.customized = true;
+        }
+
+        public int getArchiveMaxCompressionRatio() {
+            return archiveMaxCompressionRatio;
+        }
+
+        public void setArchiveMaxCompressionRatio(int archiveMaxCompressionRatio) {
+            this.archiveMaxCompressionRatio = archiveMaxCompressionRatio;
+            this.customized = true;
+        }
+
+        public MimeRepositoryMode getMimeRepository() {
+            return mimeRepository;
+        }
+
+        public void setMimeRepository(MimeRepositoryMode mimeRepository) {
+            this.mimeRepository = mimeRepository;
+            this.customized = true;
+        }
+
+        public boolean hasBeenCustomized() {
+            return customized;
+        }
+    }
+
+    public static class WarmUp {
+        // 是否在启动时后台预热参数检查
+        private boolean enabled = false;
+        // 预热时内置样本的执行轮数
+        private int iterations = 2000;
+        // 是否等待预热完成后应用才就绪（readiness）
+        private boolean readinessWaitEnabled = false;
+        // 等待预热完成的最长时间
+        private Duration readinessTimeout = Duration.ofSeconds(30);
+        private boolean customized = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            this.customized = true;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+            this.customized = true;
+        }
+
+        public boolean isReadinessWaitEnabled() {
+            return readinessWaitEnabled;
+        }
+
+        public void setReadinessWaitEnabled(boolean readinessWaitEnabled) {
+            this.readinessWaitEnabled = readinessWaitEnabled;
+            this.customized = true;
+        }
+
+        public Duration getReadinessTimeout() {
+            return readinessTimeout;
+        }
+
+        public void setReadinessTimeout(Duration readinessTimeout) {
+            this.readinessTimeout = readinessTimeout;
+            this.customized = true;
+        }
+
+        public boolean hasBeenCustomized() {
+            return customized;
+        }
+    }
+
+    public static class Filter {
+        // 参数检查过滤器排除的接口路径，这些请求不包装，通过getParameter、getParts等读取的请求参数和文件不检查；
+        // 参数解析器仍按各自的白名单检查接口方法的参数，这不是安全检查的排除列表
+        private List<String> excludedPaths = new ArrayList<>();
+        private boolean customized = false;
+
+        public List<String> getExcludedPaths() {
+            return excludedPaths;
+        }
+
+        public void setExcludedPaths(List<String> excludedPaths) {
+            this.excludedPaths = excludedPaths;
+            this.customized = true;
+        }
+
         public boolean hasBeenCustomized() {
             return customized;
         }
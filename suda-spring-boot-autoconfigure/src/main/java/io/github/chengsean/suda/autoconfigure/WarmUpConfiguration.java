@@ -0,0 +1,58 @@
+package io.github.chengsean.suda.autoconfigure;
+
+import io.github.chengsean.suda.core.handler.ArgumentHandlerWarmUp;
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 参数检查预热的配置，启用（suda.io.warm-up.enabled=true）后创建参数检查实例时即在后台线程开始预热。
+ * 启用等待（suda.io.warm-up.readiness-wait-enabled=true）时由{@link ApplicationRunner}等待预热完成，
+ * 应用在所有{@link ApplicationRunner}执行完成后才就绪（readiness）
+ * @author chengshaozhuang
+ */
+@Configuration
+@AutoConfigureAfter(ArgumentHandlerConfiguration.class)
+@ConditionalOnBean({MethodArgumentHandler.class})
+@ConditionalOnProperty(prefix = "suda.io.warm-up", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(value = {SudaProperties.class})
+public class WarmUpConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpConfiguration.class);
+
+    private final SudaProperties properties;
+
+    public WarmUpConfiguration(SudaProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ArgumentHandlerWarmUp.class)
+    public ArgumentHandlerWarmUp argumentHandlerWarmUp(List<MethodArgumentHandler> handlers) {
+        ArgumentHandlerWarmUp warmUp = new ArgumentHandlerWarmUp(handlers, properties.getWarmUp().getIterations());
+        warmUp.start();
+        return warmUp;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "suda.io.warm-up", name = "readiness-wait-enabled", havingValue = "true")
+    public ApplicationRunner argumentHandlerWarmUpRunner(ArgumentHandlerWarmUp argumentHandlerWarmUp) {
+        Duration timeout = properties.getWarmUp().getReadinessTimeout();
+        return args -> {
+            if (!argumentHandlerWarmUp.await(timeout)) {
+                logger.warn("Warm-up of argument handlers did not finish within {}, continuing startup", timeout);
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.chengsean.suda.core.tika;
+
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import org.apache.tika.config.TikaConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程检测文件类型的基准测试{@link TikaWrapper}：所有线程共用一个实例，关闭检测结论缓存，每次都完成检测。
+ * 没有争用时{@link #concurrent()}的吞吐量约为{@link #singleThread()}乘以线程数（不超过CPU核数），
+ * {@link #serialized()}用一把全局锁模拟加{@code synchronized}的做法，作为有争用时的对照
+ * @author chengshaozhuang
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TikaWrapperBenchmark {
+
+    private final Object lock = new Object();
+    /**
+     * 文本文件经过Tika的类型库检测，PDF由内置的签名检测
+     */
+    @Param({"notes.txt", "report.pdf"})
+    private String filename;
+    private TikaWrapper tikaWrapper;
+    private ByteArrayResource content;
+
+    @Setup
+    public void setUp() {
+        ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+        properties.getFiles().setVerdictCacheEnabled(false);
+        tikaWrapper = new TikaWrapper(TikaConfig.getDefaultConfig(), properties);
+        String text = filename.endsWith(".pdf") ? "%PDF-1.7\n%âãÏÓ\n" : "id,name\n1,suda\n";
+        content = new ByteArrayResource(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void singleThread() throws IOException {
+        tikaWrapper.checkFileType(filename, content);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void concurrent() throws IOException {
+        tikaWrapper.checkFileType(filename, content);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void serialized() throws IOException {
+        synchronized (lock) {
+            tikaWrapper.checkFileType(filename, content);
+        }
+    }
+}
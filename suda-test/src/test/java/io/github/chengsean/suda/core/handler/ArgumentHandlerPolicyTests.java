@@ -0,0 +1,80 @@
+package io.github.chengsean.suda.core.handler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 请求的参数检查策略单元测试{@link ArgumentHandlerPolicy}
+ * @author chengshaozhuang
+ */
+class ArgumentHandlerPolicyTests {
+
+    @Test
+    void testResolvedOncePerRequest() {
+        // 测试同一请求只计算一次策略，白名单接口不启用对应的检查
+        ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+        properties.getXssAttack().setCheckEnabled(true);
+        properties.getSqlInject().setCheckEnabled(true);
+        properties.getSqlInject().setServletPathWhitelist(Collections.singletonList("/example/**"));
+        MockHttpServletRequest request = new MockHttpServletRequest(null, "/example/account");
+        ArgumentHandlerPolicy policy = ArgumentHandlerPolicy.resolve(request, properties);
+        assertThat(ArgumentHandlerPolicy.resolve(request, properties)).isSameAs(policy);
+        assertThat(policy.getServletPath()).isEqualTo("/example/account");
+        assertThat(policy.isXssAttackCheck()).isTrue();
+        assertThat(policy.isSqlInjectCheck()).isFalse();
+        assertThat(policy.isFilesCheck()).isFalse();
+    }
+
+    @Test
+    void testResolvedAgainAfterPropertiesChanged() {
+        // 测试配置变更后重新计算策略，不同配置的策略互不影响
+        ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+        ArgumentHandlerProperties otherProperties = new ArgumentHandlerProperties();
+        MockHttpServletRequest request = new MockHttpServletRequest(null, "/index");
+        ArgumentHandlerPolicy policy = ArgumentHandlerPolicy.resolve(request, properties);
+        ArgumentHandlerPolicy otherPolicy = ArgumentHandlerPolicy.resolve(request, otherProperties);
+        assertThat(policy.isFilesCheck()).isFalse();
+        properties.getFiles().setCheckEnabled(true);
+        ArgumentHandlerPolicy resolved = ArgumentHandlerPolicy.resolve(request, properties);
+        assertThat(resolved).isNotSameAs(policy);
+        assertThat(resolved.isFilesCheck()).isTrue();
+        assertThat(ArgumentHandlerPolicy.resolve(request, otherProperties)).isSameAs(otherPolicy);
+    }
+
+    @Test
+    void testResolvedAgainAfterForward() {
+        // 测试转发到其他接口时重新计算策略，不沿用原接口路径的白名单
+        ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+        properties.getXssAttack().setCheckEnabled(true);
+        properties.getXssAttack().setServletPathWhitelist(Collections.singletonList("/example/**"));
+        MockHttpServletRequest request = new MockHttpServletRequest(null, "/example/account");
+        ArgumentHandlerPolicy policy = ArgumentHandlerPolicy.resolve(request, properties);
+        assertThat(policy.isXssAttackCheck()).isFalse();
+        // 与容器一样，转发的请求与原请求共享请求属性
+        HttpServletRequest forward = new HttpServletRequestWrapper(request) {
+            @Override
+            public String getServletPath() {
+                return "/account";
+            }
+
+            @Override
+            public DispatcherType getDispatcherType() {
+                return DispatcherType.FORWARD;
+            }
+        };
+        ArgumentHandlerPolicy forwarded = ArgumentHandlerPolicy.resolve(forward, properties);
+        assertThat(forwarded.getServletPath()).isEqualTo("/account");
+        assertThat(forwarded.isXssAttackCheck()).isTrue();
+        // 分派类型不同时也重新计算
+        request.setDispatcherType(DispatcherType.ERROR);
+        assertThat(ArgumentHandlerPolicy.resolve(request, properties)).isNotSameAs(forwarded).isNotSameAs(policy);
+    }
+}
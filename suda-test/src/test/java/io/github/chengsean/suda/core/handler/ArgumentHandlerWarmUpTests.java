@@ -0,0 +1,51 @@
+package io.github.chengsean.suda.core.handler;
+
+import io.github.chengsean.suda.autoconfigure.ArgumentHandlerConfiguration;
+import io.github.chengsean.suda.autoconfigure.WarmUpConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 参数检查预热单元测试{@link ArgumentHandlerWarmUp}
+ * @author chengshaozhuang
+ */
+@SpringBootTest(classes = {ArgumentHandlerConfiguration.class, WarmUpConfiguration.class},
+        properties = {"suda.io.warm-up.enabled=true", "suda.io.warm-up.iterations=20",
+                "suda.io.warm-up.readiness-wait-enabled=true"})
+class ArgumentHandlerWarmUpTests {
+
+    @Resource
+    private ArgumentHandlerWarmUp argumentHandlerWarmUp;
+
+    @Resource
+    private MethodArgumentHandler stringMethodArgumentHandler;
+
+    @Resource
+    private MethodArgumentHandler fileMethodArgumentHandler;
+
+    @Test
+    void testWarmUpBeforeReady() {
+        // 测试启用等待时，应用就绪前预热已经完成，字符串检查和文件类型检测都已执行
+        assertThat(argumentHandlerWarmUp.isFinished()).isTrue();
+        assertThat(((StringMethodArgumentHandler) stringMethodArgumentHandler).getPrefilterSkippedCount()).isPositive();
+    }
+
+    @Test
+    void testStartOnce() throws InterruptedException {
+        // 测试预热只会开始一次，等待时未开始则先开始
+        ArgumentHandlerWarmUp warmUp = new ArgumentHandlerWarmUp(
+                Arrays.asList(stringMethodArgumentHandler, fileMethodArgumentHandler), 5);
+        assertThat(warmUp.isFinished()).isFalse();
+        assertThat(warmUp.await(Duration.ofSeconds(30))).isTrue();
+        CompletableFuture<Void> future = warmUp.start();
+        assertThat(warmUp.start()).isSameAs(future);
+        assertThat(future).isCompleted();
+    }
+}
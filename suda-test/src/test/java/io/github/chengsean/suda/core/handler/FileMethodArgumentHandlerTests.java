@@ -3,9 +3,13 @@ package io.github.chengsean.suda.core.handler;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.MethodParameter;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.mock.web.MockPart;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.multipart.MultipartFile;
 import io.github.chengsean.suda.autoconfigure.ArgumentHandlerConfiguration;
 import io.github.chengsean.suda.core.exception.DangerousFileTypeException;
 import io.github.chengsean.suda.core.exception.IllegalFileTypeException;
@@ -126,6 +130,72 @@ class FileMethodArgumentHandlerTests {
         assertThat(obj).isEqualTo(result);
     }
 
+    @Test
+    void testParallelChecks() throws ClassloaderUnavailableException, IOException, NoSuchMethodException {
+        // 测试并行检查多个文件：全部安全时通过，包含篡改扩展名的文件时抛出对应的异常
+        ArgumentHandlerProperties.Files files = toFileMethodArgumentHandler().getProperties().getFiles();
+        files.setCheckEnabled(true);
+        files.setParallelEnabled(true);
+        try {
+            request = new MockHttpServletRequest(null, uri);
+            MethodParameter parameter = MethodParameter.forExecutable(
+                    getClass().getDeclaredMethod("upload", MultipartFile[].class), 0);
+            MultipartFile[] secureFiles = new MultipartFile[32];
+            for (int i = 0; i < secureFiles.length; i++) {
+                secureFiles[i] = (MultipartFile) createMockPart(secureFile, MULTIPART_FILE_PARAM_NAME);
+            }
+            assertThat(fileMethodArgumentHandler.securityChecks(secureFiles, request, parameter)).isSameAs(secureFiles);
+            MultipartFile[] uploads = secureFiles.clone();
+            uploads[17] = (MultipartFile) createMockPart(fakePdf, MULTIPART_FILE_PARAM_NAME);
+            assertThatThrownBy(() -> fileMethodArgumentHandler.securityChecks(uploads, request, parameter))
+                    .isInstanceOf(IllegalFileTypeException.class);
+            MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+            parts.add(PART_PARAM_NAME, createMockPart(secureFile, PART_PARAM_NAME));
+            parts.add(PART_PARAM_NAME, createMockPart(blacklistFile, PART_PARAM_NAME));
+            parts.add(MULTIPART_FILE_PARAM_NAME, createMockPart(secureFile, PART_PARAM_NAME));
+            assertThatThrownBy(() -> fileMethodArgumentHandler.securityChecks(parts, request, null))
+                    .isInstanceOf(DangerousFileTypeException.class);
+        } finally {
+            files.setParallelEnabled(false);
+        }
+    }
+
+    @Test
+    void testParallelChecksThrowFirstFailure() throws ClassloaderUnavailableException, IOException, NoSuchMethodException {
+        // 测试并行检查包含多个不同的违规文件时，总是抛出位置最靠前的文件的异常，与逐个检查一致；并行数变更后仍然有效
+        ArgumentHandlerProperties.Files files = toFileMethodArgumentHandler().getProperties().getFiles();
+        int parallelism = files.getParallelism();
+        files.setCheckEnabled(true);
+        files.setParallelEnabled(true);
+        try {
+            request = new MockHttpServletRequest(null, uri);
+            MethodParameter parameter = MethodParameter.forExecutable(
+                    getClass().getDeclaredMethod("upload", MultipartFile[].class), 0);
+            MultipartFile[] tamperedFirst = new MultipartFile[16];
+            for (int i = 0; i < tamperedFirst.length; i++) {
+                tamperedFirst[i] = (MultipartFile) createMockPart(secureFile, MULTIPART_FILE_PARAM_NAME);
+            }
+            MultipartFile[] blacklistedFirst = tamperedFirst.clone();
+            tamperedFirst[3] = (MultipartFile) createMockPart(fakePdf, MULTIPART_FILE_PARAM_NAME);
+            tamperedFirst[10] = (MultipartFile) createMockPart(blacklistFile, MULTIPART_FILE_PARAM_NAME);
+            blacklistedFirst[3] = tamperedFirst[10];
+            blacklistedFirst[10] = tamperedFirst[3];
+            for (int round = 0; round < 20; round++) {
+                files.setParallelism(round % 2 == 0 ? 4 : 8);
+                assertThatThrownBy(() -> fileMethodArgumentHandler.securityChecks(tamperedFirst, request, parameter))
+                        .isInstanceOf(IllegalFileTypeException.class);
+                assertThatThrownBy(() -> fileMethodArgumentHandler.securityChecks(blacklistedFirst, request, parameter))
+                        .isInstanceOf(DangerousFileTypeException.class);
+            }
+        } finally {
+            files.setParallelEnabled(false);
+            files.setParallelism(parallelism);
+        }
+    }
+
+    private static void upload(MultipartFile[] files) {
+    }
+
     private Object createMockPart(String filename, String paramName) throws ClassloaderUnavailableException, IOException {
         ClassLoader classloader = getClassLoader();
         String pathname = Objects.requireNonNull(classloader.getResource(filename)).getFile();
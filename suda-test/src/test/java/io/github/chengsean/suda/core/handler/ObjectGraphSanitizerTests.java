@@ -0,0 +1,185 @@
+package io.github.chengsean.suda.core.handler;
+
+import io.github.chengsean.suda.core.exception.ObjectGraphLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 对象图字符串检查单元测试{@link ObjectGraphSanitizer}
+ * @author chengshaozhuang
+ */
+class ObjectGraphSanitizerTests {
+
+    @Test
+    void testNestedBeanAndContainers() {
+        // 测试嵌套对象、集合、Map的值以及数组中的字符串
+        Node child = new Node();
+        child.setName(" child ");
+        Node root = new Node();
+        root.setName(" root ");
+        root.setChild(child);
+        root.getTags().add(" foo ");
+        root.getLabels().add(" bar ");
+        root.getAttributes().put("key", " baz ");
+        root.setAliases(new String[]{" qux "});
+        root.setValue(Collections.singletonList(" nested "));
+        new ObjectGraphSanitizer(String::trim, 16, 10000).sanitize(root);
+        assertThat(root.getName()).isEqualTo("root");
+        assertThat(child.getName()).isEqualTo("child");
+        assertThat(root.getTags()).containsExactly("foo");
+        assertThat(root.getLabels()).containsExactly("bar");
+        assertThat(root.getAttributes()).containsEntry("key", "baz");
+        assertThat(root.getAliases()).containsExactly("qux");
+        // 不可修改的集合保持原样
+        assertThat(root.getValue()).isEqualTo(Collections.singletonList(" nested "));
+    }
+
+    @Test
+    void testCycleVisitedOnce() {
+        // 测试循环引用的对象只检查一次
+        Node a = new Node();
+        Node b = new Node();
+        a.setName("a");
+        b.setName("b");
+        a.setChild(b);
+        b.setChild(a);
+        b.getChildren().add(b);
+        new ObjectGraphSanitizer(value -> value + "!", 16, 10000).sanitize(a);
+        assertThat(a.getName()).isEqualTo("a!");
+        assertThat(b.getName()).isEqualTo("b!");
+    }
+
+    @Test
+    void testLimits() {
+        // 测试超出深度和对象数量限制时拒绝入参
+        Link root = new Link();
+        Link link = root;
+        for (int i = 0; i < 5; i++) {
+            link.setName(" " + i + " ");
+            Link next = new Link();
+            link.setNext(next);
+            link = next;
+        }
+        assertThatExceptionOfType(ObjectGraphLimitExceededException.class)
+                .isThrownBy(() -> new ObjectGraphSanitizer(String::trim, 2, 10000).sanitize(root));
+        assertThatExceptionOfType(ObjectGraphLimitExceededException.class)
+                .isThrownBy(() -> new ObjectGraphSanitizer(String::trim, 16, 4).sanitize(root));
+        // 不超出限制时全部检查
+        new ObjectGraphSanitizer(String::trim, 5, 6).sanitize(root);
+        assertThat(root.getNext().getNext().getNext().getNext().getName()).isEqualTo("4");
+    }
+
+    @Test
+    void testUnmodifiableContainers() {
+        // 测试不可修改的集合、Map中第一个元素写回失败后，其余元素仍然检查
+        List<Object> checked = new ArrayList<>();
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("a", " a ");
+        attributes.put("b", " b ");
+        Node root = new Node();
+        root.setValue(Collections.unmodifiableList(Arrays.asList(" x ", " y ", " z ")));
+        root.setChild(new Node());
+        root.getChild().setValue(Collections.unmodifiableMap(attributes));
+        new ObjectGraphSanitizer(value -> {
+            checked.add(value);
+            return value.trim();
+        }, 16, 10000).sanitize(root);
+        assertThat(checked).contains(" x ", " y ", " z ", " a ", " b ");
+        assertThatIllegalStateException().isThrownBy(() -> new ObjectGraphSanitizer(value -> {
+            if (value.contains("z")) {
+                throw new IllegalStateException(value);
+            }
+            return value.trim();
+        }, 16, 10000).sanitize(root));
+    }
+
+    public static class Link {
+        private String name;
+        private Link next;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Link getNext() {
+            return next;
+        }
+
+        public void setNext(Link next) {
+            this.next = next;
+        }
+    }
+
+    public static class Node {
+        private String name;
+        private Node child;
+        private Object value;
+        private String[] aliases;
+        private final List<Node> children = new ArrayList<>();
+        private final List<String> tags = new ArrayList<>();
+        private final Set<String> labels = new HashSet<>();
+        private final Map<String, String> attributes = new HashMap<>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Node getChild() {
+            return child;
+        }
+
+        public void setChild(Node child) {
+            this.child = child;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+
+        public String[] getAliases() {
+            return aliases;
+        }
+
+        public void setAliases(String[] aliases) {
+            this.aliases = aliases;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public Set<String> getLabels() {
+            return labels;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+    }
+}
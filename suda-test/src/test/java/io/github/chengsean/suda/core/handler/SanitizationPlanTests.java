@@ -0,0 +1,76 @@
+package io.github.chengsean.suda.core.handler;
+
+import io.github.chengsean.suda.core.exception.SQLKeyboardDetectedException;
+import io.github.chengsean.suda.test.Account;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 对象字符串属性检查计划单元测试{@link SanitizationPlan}
+ * @author chengshaozhuang
+ */
+class SanitizationPlanTests {
+
+    @Test
+    void testPlanCachedPerClass() {
+        // 测试同一类型的检查计划只计算一次
+        assertThat(SanitizationPlan.of(Account.class)).isSameAs(SanitizationPlan.of(Account.class));
+    }
+
+    @Test
+    void testApplyToStringProperties() {
+        // 测试只检查可读写的字符串属性
+        Account account = new Account();
+        account.setSn(1L);
+        account.setId(" 520032191110242048 ");
+        account.setName(" chengshaozhuang   ");
+        SanitizationPlan.of(Account.class).apply(account, String::trim);
+        assertThat(account.getSn()).isEqualTo(1L);
+        assertThat(account.getId()).isEqualTo("520032191110242048");
+        assertThat(account.getName()).isEqualTo("chengshaozhuang");
+        assertThat(account.getEmail()).isNull();
+    }
+
+    @Test
+    void testApplyToNonPublicClass() {
+        // 测试非public类的属性同样可以访问
+        Comment comment = new Comment();
+        comment.setContent(" <b>suda</b> ");
+        comment.setReadOnly(" suda ");
+        SanitizationPlan.of(Comment.class).apply(comment, String::trim);
+        assertThat(comment.getContent()).isEqualTo("<b>suda</b>");
+        assertThat(comment.getReadOnly()).isEqualTo(" suda ");
+    }
+
+    @Test
+    void testSanitizerExceptionPropagated() {
+        // 测试字符串检查方法抛出的异常原样抛出
+        Comment comment = new Comment();
+        comment.setContent("select ");
+        assertThatThrownBy(() -> SanitizationPlan.of(Comment.class).apply(comment, value -> {
+            throw new SQLKeyboardDetectedException(value);
+        })).isInstanceOf(SQLKeyboardDetectedException.class);
+    }
+
+    static class Comment {
+        private String content;
+        private String readOnly;
+
+        public String getContent() {
+            return content;
+        }
+
+        public void setContent(String content) {
+            this.content = content;
+        }
+
+        public String getReadOnly() {
+            return readOnly;
+        }
+
+        void setReadOnly(String readOnly) {
+            this.readOnly = readOnly;
+        }
+    }
+}
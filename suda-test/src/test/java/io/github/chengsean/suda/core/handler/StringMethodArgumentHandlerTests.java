@@ -123,4 +123,19 @@ class StringMethodArgumentHandlerTests {
         assertThatThrownBy(()-> stringMethodArgumentHandler.securityChecks(
                 nickname, request, null)).isInstanceOf(SQLKeyboardDetectedException.class);
     }
+
+    @Test
+    void testCleanStringSkippedByPrefilter() {
+        // 测试不包含任何触发字符的字符串由预过滤器直接返回
+        toStringMethodArgumentHandler().getProperties().getSqlInject().setCheckEnabled(true);
+        toStringMethodArgumentHandler().getProperties().getXssAttack().setCheckEnabled(true);
+        request = new MockHttpServletRequest(null, uri);
+        long skippedCount = toStringMethodArgumentHandler().getPrefilterSkippedCount();
+        Object value = stringMethodArgumentHandler.securityChecks("2024-10-21", request, null);
+        assertThat(value).isEqualTo("2024-10-21");
+        assertThat(toStringMethodArgumentHandler().getPrefilterSkippedCount()).isEqualTo(skippedCount + 1);
+        assertThatThrownBy(()-> stringMethodArgumentHandler.securityChecks(
+                nickname, request, null)).isInstanceOf(SQLKeyboardDetectedException.class);
+        assertThat(toStringMethodArgumentHandler().getPrefilterSkippedCount()).isEqualTo(skippedCount + 1);
+    }
 }
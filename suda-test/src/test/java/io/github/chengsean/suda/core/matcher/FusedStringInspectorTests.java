@@ -0,0 +1,60 @@
+package io.github.chengsean.suda.core.matcher;
+
+import io.github.chengsean.suda.core.exception.SQLKeyboardDetectedException;
+import io.github.chengsean.suda.core.util.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 单次扫描的字符串检查器单元测试{@link FusedStringInspector}
+ * @author chengshaozhuang
+ */
+class FusedStringInspectorTests {
+
+    private final String[] keywords = {"and ", "select ", ";|or ", "+|user()"};
+    private final String[] defaultRegexList = {XSSTagDetector.TAG.getRegex(), XSSTagDetector.TAG_PAIR.getRegex()};
+
+    @Test
+    void testUnchangedValueNotCopied() {
+        // 测试无需改变的字符串原样返回
+        FusedStringInspector inspector = FusedStringInspector.of(SQLKeywordMatcher.compile(keywords),
+                XSSMatcher.compile(defaultRegexList));
+        String value = "chengshaozhuang";
+        assertThat(inspector.inspect(value, true, true, true)).isSameAs(value);
+    }
+
+    @Test
+    void testSameResultsAsStandardEngine() {
+        // 测试与依次检查SQL关键词、XSS、去空格的结果一致
+        String[][] regexLists = {defaultRegexList, {XSSTagDetector.TAG_PAIR.getRegex()}, {".*on\\w+=.*"}};
+        Random random = new Random(20241021L);
+        String alphabet = "<>/ \tand;|or+sel";
+        for (String[] regexList : regexLists) {
+            SQLKeywordMatcher sqlKeywordMatcher = SQLKeywordMatcher.compile(keywords);
+            XSSMatcher xssMatcher = XSSMatcher.compile(regexList);
+            FusedStringInspector inspector = FusedStringInspector.of(sqlKeywordMatcher, xssMatcher);
+            for (int i = 0; i < 5000; i++) {
+                StringBuilder builder = new StringBuilder();
+                int length = random.nextInt(16);
+                for (int j = 0; j < length; j++) {
+                    builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                String value = builder.toString();
+                boolean sqlCheck = random.nextBoolean();
+                boolean xssCheck = random.nextBoolean();
+                boolean trim = random.nextBoolean();
+                if (sqlCheck && sqlKeywordMatcher.matches(value)) {
+                    assertThatThrownBy(() -> inspector.inspect(value, sqlCheck, xssCheck, trim))
+                            .isInstanceOf(SQLKeyboardDetectedException.class);
+                    continue;
+                }
+                String expected = xssCheck && xssMatcher.matches(value) ? StringEscapeUtils.escapeHtml4(value) : value;
+                expected = trim ? expected.trim() : expected;
+                assertThat(inspector.inspect(value, sqlCheck, xssCheck, trim)).as(value).isEqualTo(expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * SQL关键词多模式匹配器单元测试{@link SQLKeywordMatcher}
+ * @author chengshaozhuang
+ */
+class SQLKeywordMatcherTests {
+
+    private final String[] keywords = {"and ","exec ","insert ","select ","delete ","update ","drop ","count ","chr ",
+            "mid ","master ","truncate ","char ","declare ",";|or ","+|user()"};
+
+    @Test
+    void testFindFirstKeyword() {
+        // 测试返回最先出现的关键词
+        SQLKeywordMatcher matcher = SQLKeywordMatcher.compile(keywords);
+        assertThat(matcher.findFirst("Gengshao select * from mysql.user;")).isEqualTo("select ");
+        assertThat(matcher.findFirst("1 and drop table")).isEqualTo("and ");
+        assertThat(matcher.findFirst("chengshaozhuang")).isNull();
+    }
+
+    @Test
+    void testLiteralKeywords() {
+        // 测试'+|user()'这类关键词按字面量匹配
+        SQLKeywordMatcher matcher = SQLKeywordMatcher.compile(keywords);
+        assertThat(matcher.matches("1+|user()")).isTrue();
+        assertThat(matcher.matches("1+user()")).isFalse();
+        assertThat(matcher.matches("a;|or b")).isTrue();
+        assertThat(matcher.matches("a;or b")).isFalse();
+    }
+
+    @Test
+    void testOverlappingKeywords() {
+        // 测试关键词互为前缀、后缀时的失配处理
+        SQLKeywordMatcher matcher = SQLKeywordMatcher.compile(new String[]{"abcd", "bc", "cde"});
+        assertThat(matcher.findFirst("xabcx")).isEqualTo("bc");
+        assertThat(matcher.findFirst("xacdex")).isEqualTo("cde");
+        assertThat(matcher.findFirst("abd")).isNull();
+    }
+
+    @Test
+    void testEmptyAndNullKeywords() {
+        // 测试空关键词（与String.contains("")一致，总是命中）以及null关键词
+        assertThat(SQLKeywordMatcher.compile(new String[]{""}).matches("")).isTrue();
+        assertThat(SQLKeywordMatcher.compile(new String[]{null, "or "}).matches("a or b")).isTrue();
+        assertThat(SQLKeywordMatcher.compile(null).matches("a or b")).isFalse();
+    }
+
+    @Test
+    void testSameVerdictsAsStringContains() {
+        // 测试与逐个关键词调用String.contains的结果一致
+        SQLKeywordMatcher matcher = SQLKeywordMatcher.compile(keywords);
+        Random random = new Random(20241021L);
+        String alphabet = "andexcutorsilm ;|+()";
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = builder.toString();
+            boolean expected = false;
+            for (String keyword : keywords) {
+                expected |= text.contains(keyword);
+            }
+            assertThat(matcher.matches(text)).as(text).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 接口白名单匹配器单元测试{@link ServletPathWhitelistMatcher}
+ * @author chengshaozhuang
+ */
+class ServletPathWhitelistMatcherTests {
+
+    @Test
+    void testMatchMask() {
+        // 测试一次查找得到路径所在的所有白名单
+        ServletPathWhitelistMatcher matcher = ServletPathWhitelistMatcher.compile(Arrays.asList("/foo", "/api/**"),
+                Arrays.asList("/foo", "/bar"), Collections.singletonList("/upload/*.do"));
+        assertThat(matcher.match("/foo")).isEqualTo(ServletPathWhitelistMatcher.XSS_ATTACK
+                | ServletPathWhitelistMatcher.SQL_INJECT);
+        assertThat(matcher.match("/api/v1/account")).isEqualTo(ServletPathWhitelistMatcher.XSS_ATTACK);
+        assertThat(matcher.match("/upload/avatar.do")).isEqualTo(ServletPathWhitelistMatcher.FILES);
+        assertThat(matcher.isOnWhitelist("/bar", ServletPathWhitelistMatcher.XSS_ATTACK)).isFalse();
+        assertThat(matcher.match("/baz")).isZero();
+        assertThat(matcher.match(null)).isZero();
+    }
+
+    @Test
+    void testSameResultsAsAntPathMatcher() {
+        // 测试与逐个模式匹配的结果一致
+        List<String> whitelist = Arrays.asList("/foo", "/foo/", "/foo//bar", "/foo/{id}", "/foo/*/baz", "/**/*.js", null);
+        String[] paths = {"/foo", "/foo/", "//foo", "/foo/bar", "/foo//bar", "/foo/1/baz", "/static/app.js", "foo", ""};
+        ServletPathWhitelistMatcher matcher = ServletPathWhitelistMatcher.compile(whitelist, null, null);
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+        for (String path : paths) {
+            boolean expected = whitelist.stream().anyMatch(url -> url != null && antPathMatcher.match(url, path));
+            assertThat(matcher.isOnWhitelist(path, ServletPathWhitelistMatcher.XSS_ATTACK)).as(path).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.PatternSyntaxException;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * XSS检测规则单元测试{@link XSSMatcher}
+ * @author chengshaozhuang
+ */
+class XSSMatcherTests {
+
+    @Test
+    void testDefaultRegexUseBuiltInDetector() {
+        // 测试默认正则由内置检测器处理
+        XSSMatcher matcher = XSSMatcher.compile(new String[]{XSSTagDetector.TAG.getRegex(), XSSTagDetector.TAG_PAIR.getRegex()});
+        assertThat(matcher.hasCustomPatterns()).isFalse();
+        assertThat(matcher.matches("<script>alert(1)</script>")).isTrue();
+        assertThat(matcher.matches("chengshaozhuang")).isFalse();
+    }
+
+    @Test
+    void testCustomRegexCombined() {
+        // 测试自定义正则合并后与逐个调用String.matches的结果一致
+        String[] regexList = {"(?i).*javascript:.*", ".*on\\w+=.*", "\\d+"};
+        XSSMatcher matcher = XSSMatcher.compile(regexList);
+        assertThat(matcher.hasCustomPatterns()).isTrue();
+        String[] texts = {"JavaScript:alert(1)", "img onerror=x", "123", "123a", "chengshaozhuang", ""};
+        for (String text : texts) {
+            boolean expected = false;
+            for (String regex : regexList) {
+                expected |= text.matches(regex);
+            }
+            assertThat(matcher.matches(text)).as(text).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void testCustomRegexWithBackReference() {
+        // 测试包含反向引用的正则单独编译
+        XSSMatcher matcher = XSSMatcher.compile(new String[]{"(a)b", "(x)\\1"});
+        assertThat(matcher.matches("xx")).isTrue();
+        assertThat(matcher.matches("ab")).isTrue();
+        assertThat(matcher.matches("xa")).isFalse();
+    }
+
+    @Test
+    void testIllegalRegex() {
+        // 测试正则语法错误时在编译阶段抛出异常
+        assertThatThrownBy(() -> XSSMatcher.compile(new String[]{"<[a-"})).isInstanceOf(PatternSyntaxException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.chengsean.suda.core.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 内置HTML标签形态检测器单元测试{@link XSSTagDetector}
+ * @author chengshaozhuang
+ */
+class XSSTagDetectorTests {
+
+    @Test
+    void testTagShapes() {
+        // 测试常见的标签形态
+        assertThat(XSSTagDetector.TAG.matches("<script>alert(\"chengshaozhuang\")</script>")).isTrue();
+        assertThat(XSSTagDetector.TAG.matches("<br/>")).isTrue();
+        assertThat(XSSTagDetector.TAG.matches("a<>b")).isFalse();
+        assertThat(XSSTagDetector.TAG.matches("1 > 0 < 2")).isFalse();
+        assertThat(XSSTagDetector.TAG_PAIR.matches("<b>bold</b>")).isTrue();
+        assertThat(XSSTagDetector.TAG_PAIR.matches("<b></b>")).isFalse();
+        assertThat(XSSTagDetector.TAG_PAIR.matches("<img src=x/>")).isFalse();
+    }
+
+    @Test
+    void testForRegex() {
+        // 测试默认正则表达式对应的内置检测器
+        for (XSSTagDetector detector : XSSTagDetector.values()) {
+            assertThat(XSSTagDetector.forRegex(detector.getRegex())).isEqualTo(detector);
+        }
+        assertThat(XSSTagDetector.forRegex("<script>")).isNull();
+    }
+
+    @Test
+    void testSameVerdictsAsRegex() {
+        // 测试与默认正则表达式的判定结果一致
+        Random random = new Random(20241021L);
+        String alphabet = "<>/ a\n";
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = builder.toString();
+            for (XSSTagDetector detector : XSSTagDetector.values()) {
+                assertThat(detector.matches(text)).as(detector + ": " + text).isEqualTo(text.matches(detector.getRegex()));
+            }
+        }
+    }
+
+    @Test
+    void testLongInputWithManyBrackets() {
+        // 测试包含大量'<'的长字符串可在线性时间内完成检查
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            builder.append('<');
+        }
+        String text = builder.toString();
+        assertThat(XSSTagDetector.TAG.matches(text)).isFalse();
+        assertThat(XSSTagDetector.TAG_PAIR.matches(text)).isFalse();
+    }
+}
@@ -0,0 +1,257 @@
+package io.github.chengsean.suda.core.multipart;
+
+import io.github.chengsean.suda.core.exception.DangerousFileTypeException;
+import io.github.chengsean.suda.core.exception.IllegalFileTypeException;
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import io.github.chengsean.suda.core.handler.FileMethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.StringMethodArgumentHandler;
+import io.github.chengsean.suda.core.tika.TikaWrapper;
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.config.TikaConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Part;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 流式解析multipart请求单元测试{@link SecurityStreamingMultipartResolver}
+ * @author chengshaozhuang
+ */
+class SecurityStreamingMultipartResolverTests {
+
+    private static final String BOUNDARY = "----SudaBoundary7MA4YWxkTrZu0gW";
+    private static final int PADDING = 4 * 1024 * 1024;
+
+    private ArgumentHandlerProperties properties;
+    private SecurityStreamingMultipartResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ArgumentHandlerProperties();
+        properties.getFiles().setCheckEnabled(true);
+        resolver = new SecurityStreamingMultipartResolver(properties,
+                new TikaWrapper(TikaConfig.getDefaultConfig(), properties), new StringMethodArgumentHandler(properties));
+    }
+
+    @Test
+    void testResolveMultipart() throws IOException {
+        // 测试解析文本字段和安全的文件
+        byte[] secureFile = readResource("secure-file.txt");
+        byte[] body = new Body().field("name", "suda").field("name", "中文")
+                .file("file", "secure-file.txt", secureFile).end();
+        CountingRequest request = new CountingRequest(body);
+        MultipartHttpServletRequest multipartRequest = resolver.resolveMultipart(request);
+        try {
+            assertThat(multipartRequest.getParameterValues("name")).containsExactly("suda", "中文");
+            MultipartFile file = multipartRequest.getFile("file");
+            assertThat(file).isNotNull();
+            assertThat(file.getOriginalFilename()).isEqualTo("secure-file.txt");
+            assertThat(file.getBytes()).isEqualTo(secureFile);
+            Part part = multipartRequest.getPart("file");
+            assertThat(part.getSubmittedFileName()).isEqualTo("secure-file.txt");
+            assertThat(part.getContentType()).isEqualTo("text/plain");
+            assertThat(multipartRequest.getParts()).hasSize(3);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            resolver.cleanupMultipart(multipartRequest);
+        }
+    }
+
+    @Test
+    void testSanitizeTextFields() {
+        // 测试文本字段经过字符串参数的安全检查，解析得到的请求直接返回文本字段，不会经过参数检查过滤器包装的请求
+        properties.getXssAttack().setCheckEnabled(true);
+        byte[] body = new Body().field("name", "<script>alert(1)</script>").field("name", "suda").end();
+        MultipartHttpServletRequest multipartRequest = resolver.resolveMultipart(new CountingRequest(body));
+        try {
+            String escaped = "&lt;script&gt;alert(1)&lt;/script&gt;";
+            assertThat(multipartRequest.getParameter("name")).isEqualTo(escaped);
+            assertThat(multipartRequest.getParameterValues("name")).containsExactly(escaped, "suda");
+            assertThat(multipartRequest.getParameterMap().get("name")).containsExactly(escaped, "suda");
+        } finally {
+            resolver.cleanupMultipart(multipartRequest);
+        }
+    }
+
+    @Test
+    void testRecordInspectedParts() throws IOException {
+        // 测试流式解析时检查通过的文件记录在请求属性中，参数解析器不再读取文件内容重复检查，文本字段不记录
+        byte[] body = new Body().field("name", "suda").file("file", "secure-file.txt", readResource("secure-file.txt")).end();
+        CountingRequest request = new CountingRequest(body);
+        MultipartHttpServletRequest multipartRequest = resolver.resolveMultipart(request);
+        try {
+            MultipartFile file = Objects.requireNonNull(multipartRequest.getFile("file"));
+            assertThat(FileMethodArgumentHandler.inspectedFiles(request)).containsExactly(file);
+            AtomicInteger checks = new AtomicInteger();
+            FileMethodArgumentHandler fileMethodArgumentHandler = new FileMethodArgumentHandler(properties,
+                    new TikaWrapper(TikaConfig.getDefaultConfig(), properties) {
+                        @Override
+                        public void checkFileType(String filename, InputStreamSource source) {
+                            checks.incrementAndGet();
+                        }
+                    });
+            fileMethodArgumentHandler.securityChecks(file, multipartRequest, null);
+            fileMethodArgumentHandler.securityChecks(multipartRequest.getPart("file"), multipartRequest, null);
+            assertThat(checks.get()).isZero();
+        } catch (ServletException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            resolver.cleanupMultipart(multipartRequest);
+        }
+    }
+
+    @Test
+    void testSpoolToFile() throws IOException {
+        // 测试超过阈值的文件写入临时文件
+        resolver.setFileSizeThreshold(1024);
+        byte[] content = new byte[64 * 1024];
+        Arrays.fill(content, (byte) 'a');
+        byte[] body = new Body().file("file", "large.txt", content).end();
+        MultipartHttpServletRequest multipartRequest = resolver.resolveMultipart(new CountingRequest(body));
+        try {
+            MultipartFile file = Objects.requireNonNull(multipartRequest.getFile("file"));
+            assertThat(file.getSize()).isEqualTo(content.length);
+            try (InputStream inputStream = file.getInputStream()) {
+                assertThat(IOUtils.toByteArray(inputStream)).isEqualTo(content);
+            }
+        } finally {
+            resolver.cleanupMultipart(multipartRequest);
+        }
+    }
+
+    @Test
+    void testRejectBlacklistFileEarly() throws IOException {
+        // 测试读取到黑名单文件的请求头时立即拒绝，不再读取之后的请求体
+        byte[] content = new byte[PADDING];
+        byte[] body = new Body().file("file", "blacklist-file.js", content).end();
+        CountingRequest request = new CountingRequest(body);
+        assertThatExceptionOfType(DangerousFileTypeException.class).isThrownBy(() -> resolver.resolveMultipart(request));
+        assertThat(request.bytesRead).isLessThan(64 * 1024);
+    }
+
+    @Test
+    void testRejectIllegalFileTypeEarly() throws IOException {
+        // 测试读取到文件头时立即拒绝篡改扩展名的文件
+        byte[] fakePdf = readResource("fake-pdf.pdf");
+        byte[] content = new byte[PADDING];
+        Arrays.fill(content, (byte) ' ');
+        System.arraycopy(fakePdf, 0, content, 0, fakePdf.length);
+        byte[] body = new Body().file("file", "fake-pdf.pdf", content).end();
+        CountingRequest request = new CountingRequest(body);
+        assertThatExceptionOfType(IllegalFileTypeException.class).isThrownBy(() -> resolver.resolveMultipart(request));
+        assertThat(request.bytesRead).isLessThan(64 * 1024);
+    }
+
+    @Test
+    void testServletPathWhitelist() {
+        // 测试接口白名单上的请求不检查文件
+        properties.getFiles().setServletPathWhitelist(Collections.singletonList("/upload"));
+        byte[] body = new Body().file("file", "fake-pdf.pdf", "window.onload=function() {}".getBytes()).end();
+        CountingRequest request = new CountingRequest(body);
+        request.setServletPath("/upload");
+        MultipartHttpServletRequest multipartRequest = resolver.resolveMultipart(request);
+        assertThat(multipartRequest.getFile("file")).isNotNull();
+        resolver.cleanupMultipart(multipartRequest);
+    }
+
+    @Test
+    void testLimits() {
+        // 测试文件大小限制以及格式错误的请求体、Content-Disposition
+        resolver.setMaxFileSize(1024);
+        byte[] body = new Body().file("file", "large.txt", new byte[4096]).end();
+        assertThatExceptionOfType(MaxUploadSizeExceededException.class)
+                .isThrownBy(() -> resolver.resolveMultipart(new CountingRequest(body)));
+        byte[] truncated = Arrays.copyOf(body, body.length - 10);
+        resolver.setMaxFileSize(-1);
+        assertThatExceptionOfType(MultipartException.class)
+                .isThrownBy(() -> resolver.resolveMultipart(new CountingRequest(truncated)));
+        byte[] malformed = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename\r\n\r\n" +
+                "a\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8);
+        assertThatExceptionOfType(MultipartException.class)
+                .isThrownBy(() -> resolver.resolveMultipart(new CountingRequest(malformed)));
+    }
+
+    private byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream(name))) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    /**
+     * 构造multipart请求体
+     */
+    private static class Body {
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        private Body field(String name, String value) {
+            write("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n");
+            return this;
+        }
+
+        private Body file(String name, String filename, byte[] content) {
+            write("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\"" +
+                    filename + "\"\r\nContent-Type: text/plain\r\n\r\n");
+            outputStream.write(content, 0, content.length);
+            write("\r\n");
+            return this;
+        }
+
+        private byte[] end() {
+            write("--" + BOUNDARY + "--\r\n");
+            return outputStream.toByteArray();
+        }
+
+        private void write(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            outputStream.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * 记录读取的请求体字节数
+     */
+    private static class CountingRequest extends MockHttpServletRequest {
+        private final byte[] body;
+        private long bytesRead;
+
+        private CountingRequest(byte[] body) {
+            super("POST", "/index");
+            this.body = body;
+            setContentType("multipart/form-data; boundary=" + BOUNDARY);
+            setCharacterEncoding("UTF-8");
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new DelegatingServletInputStream(new ByteArrayInputStream(body) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    int read = super.read(b, off, len);
+                    bytesRead += Math.max(read, 0);
+                    return read;
+                }
+            });
+        }
+    }
+}
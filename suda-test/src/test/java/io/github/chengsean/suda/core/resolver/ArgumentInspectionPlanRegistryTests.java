@@ -0,0 +1,49 @@
+package io.github.chengsean.suda.core.resolver;
+
+import io.github.chengsean.suda.core.handler.ArgumentShape;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 方法参数检查计划注册表单元测试{@link ArgumentInspectionPlanRegistry}
+ * @author chengshaozhuang
+ */
+class ArgumentInspectionPlanRegistryTests {
+
+    @Test
+    void testPrecompute() throws NoSuchMethodException {
+        // 测试预先计算请求处理方法所有参数的检查计划，运行时查找到同一个计划
+        ArgumentInspectionPlanRegistry registry = new ArgumentInspectionPlanRegistry();
+        HandlerMethod handlerMethod = new HandlerMethod(new TestController(), TestController.class.getMethod("upload",
+                String.class, MultipartFile.class, List.class, Map.class, MultiValueMap.class));
+        registry.precompute(Collections.singletonList(handlerMethod));
+        assertThat(registry.size()).isEqualTo(5);
+        MethodParameter[] parameters = handlerMethod.getMethodParameters();
+        assertThat(registry.getPlan(parameters[0]).isMultipartArgument()).isFalse();
+        assertThat(registry.getPlan(parameters[1]).isMultipartArgument()).isTrue();
+        assertThat(registry.getPlan(parameters[2]).isMultipartArgument()).isTrue();
+        assertThat(registry.getPlan(parameters[2]).getShape()).isEqualTo(ArgumentShape.MULTIPART_FILE_COLLECTION);
+        assertThat(registry.getPlan(parameters[3]).getShape()).isEqualTo(ArgumentShape.MAP);
+        assertThat(registry.getPlan(parameters[4]).getShape()).isEqualTo(ArgumentShape.MULTIPART_MULTI_VALUE_MAP);
+        // 等价的参数对象查找到同一个计划
+        MethodParameter parameter = new MethodParameter(handlerMethod.getMethod(), 1);
+        assertThat(registry.getPlan(parameter)).isSameAs(registry.getPlan(parameters[1]));
+        assertThat(registry.size()).isEqualTo(5);
+    }
+
+    static class TestController {
+
+        public void upload(String name, MultipartFile file, List<MultipartFile> files, Map<String, String> map,
+                           MultiValueMap<String, MultipartFile> fileMap) {
+        }
+    }
+}
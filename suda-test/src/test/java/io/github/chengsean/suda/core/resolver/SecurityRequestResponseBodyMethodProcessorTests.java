@@ -1,6 +1,11 @@
 package io.github.chengsean.suda.core.resolver;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import io.github.chengsean.suda.core.exception.SQLKeyboardDetectedException;
 import io.github.chengsean.suda.test.Account;
 import io.github.chengsean.suda.test.Constant;
 import io.github.chengsean.suda.test.Result;
@@ -22,8 +28,11 @@ import io.github.chengsean.suda.autoconfigure.ArgumentResolverConfiguration;
 
 import javax.annotation.Resource;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -65,6 +74,84 @@ class SecurityRequestResponseBodyMethodProcessorTests {
                 .andExpect(jsonPath("$.data.birthday").value(account.getBirthday().toString()));
     }
 
+    @Test
+    void testRequestBodyJsonSanitizedWhileDeserializing() throws Exception {
+        // 测试JSON字符串在反序列化时完成检查，包括嵌套集合中的字符串
+        String url = Constant.PREFIX_SERVLET_PATH + "/requestBodyMapWithRequestBodyAnnotation";
+        String content = "{\"name\":\" <b>suda</b> \",\"tags\":[\" <i>foo</i> \",\" bar \"]}";
+        mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON)
+                .content(content)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("&lt;b&gt;suda&lt;/b&gt;"))
+                .andExpect(jsonPath("$.data.tags[0]").value("&lt;i&gt;foo&lt;/i&gt;"))
+                .andExpect(jsonPath("$.data.tags[1]").value("bar"));
+    }
+
+    @Test
+    void testRequestBodyJsonSQLKeywordDetected() {
+        // 测试反序列化时检查出SQL关键词，抛出原异常
+        String url = Constant.PREFIX_SERVLET_PATH + "/requestBodyMapWithRequestBodyAnnotation";
+        String content = "{\"tags\":[\"select * from account\"]}";
+        assertThatThrownBy(() -> mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON)
+                .content(content))).message().contains(SQLKeyboardDetectedException.class.getName());
+    }
+
+    @Test
+    void testRequestBodyJsonCustomDeserializerChecked() throws Exception {
+        // 测试自定义反序列化器解析的字符串在反序列化完成后仍被检查，反序列化时检查过的字符串不会被重复转义
+        String url = Constant.PREFIX_SERVLET_PATH + "/requestBodyCustomDeserializer";
+        String content = "{\"name\":\" <b>suda</b> \",\"remark\":\" <i>raw</i> \"}";
+        mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON)
+                .content(content)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("&lt;b&gt;suda&lt;/b&gt;"))
+                .andExpect(jsonPath("$.data.remark").value("&lt;i&gt;raw&lt;/i&gt;"));
+    }
+
+    @Test
+    void testRequestBodyJsonNodeChecked() throws Exception {
+        // 测试JsonNode中的文本节点在反序列化时被检查，包括嵌套的对象和数组
+        String url = Constant.PREFIX_SERVLET_PATH + "/requestBodyJsonNode";
+        String content = "{\"name\":\" <b>suda</b> \",\"items\":[{\"tag\":\" <i>foo</i> \"},\" bar \"]}";
+        mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON)
+                .content(content)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("&lt;b&gt;suda&lt;/b&gt;"))
+                .andExpect(jsonPath("$.data.items[0].tag").value("&lt;i&gt;foo&lt;/i&gt;"))
+                .andExpect(jsonPath("$.data.items[1]").value("bar"));
+        String sql = "{\"items\":[\"select * from account\"]}";
+        assertThatThrownBy(() -> mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON)
+                .content(sql))).message().contains(SQLKeyboardDetectedException.class.getName());
+    }
+
+    public static class Remark {
+        private String name;
+        @JsonDeserialize(using = RawTextDeserializer.class)
+        private String remark;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+    }
+
+    /**
+     * 直接读取文本、不经过字符串反序列化器的自定义反序列化器
+     */
+    public static class RawTextDeserializer extends JsonDeserializer<String> {
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return new String(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        }
+    }
 
     @RestController
     @RequestMapping(Constant.PREFIX_SERVLET_PATH)
@@ -79,6 +166,27 @@ class SecurityRequestResponseBodyMethodProcessorTests {
             return Result.OK(account);
         }
 
+        @RequestMapping(value = "/requestBodyMapWithRequestBodyAnnotation", method = RequestMethod.POST)
+        @ResponseBody
+        public Result<?> requestBodyMapWithRequestBodyAnnotation(@RequestBody Map<String, Object> map) {
+            printLog(map);
+            return Result.OK(map);
+        }
+
+        @RequestMapping(value = "/requestBodyCustomDeserializer", method = RequestMethod.POST)
+        @ResponseBody
+        public Result<?> requestBodyCustomDeserializer(@RequestBody Remark remark) {
+            printLog(remark);
+            return Result.OK(remark);
+        }
+
+        @RequestMapping(value = "/requestBodyJsonNode", method = RequestMethod.POST)
+        @ResponseBody
+        public Result<?> requestBodyJsonNode(@RequestBody JsonNode node) {
+            printLog(node);
+            return Result.OK(node);
+        }
+
         private void printLog(Object obj) {
             if (obj == null) {
                 logger.info("param: null");
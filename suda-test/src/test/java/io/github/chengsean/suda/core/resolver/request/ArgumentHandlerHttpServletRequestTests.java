@@ -0,0 +1,131 @@
+package io.github.chengsean.suda.core.resolver.request;
+
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import io.github.chengsean.suda.core.handler.FileMethodArgumentHandler;
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import io.github.chengsean.suda.core.tika.TikaWrapper;
+import org.apache.tika.config.TikaConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockPart;
+
+import javax.servlet.http.Part;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 请求参数检查单元测试{@link ArgumentHandlerHttpServletRequest}
+ * @author chengshaozhuang
+ */
+class ArgumentHandlerHttpServletRequestTests {
+
+    private final AtomicInteger checks = new AtomicInteger();
+    private final List<String> inspected = Collections.synchronizedList(new ArrayList<>());
+    private final FileMethodArgumentHandler fileMethodArgumentHandler;
+    private final MethodArgumentHandler stringMethodArgumentHandler = (arg, request, parameter) -> {
+        checks.incrementAndGet();
+        return arg == null ? null : arg.toString().trim();
+    };
+
+    ArgumentHandlerHttpServletRequestTests() {
+        ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+        properties.getFiles().setCheckEnabled(true);
+        // 记录检查过的文件，文件名以dangerous开头时检查不通过
+        TikaWrapper tikaWrapper = new TikaWrapper(TikaConfig.getDefaultConfig(), properties) {
+            @Override
+            public void checkFileType(String filename, InputStreamSource source) {
+                inspected.add(filename);
+                if (filename.startsWith("dangerous")) {
+                    throw new IllegalStateException("dangerous part");
+                }
+            }
+        };
+        fileMethodArgumentHandler = new FileMethodArgumentHandler(properties, tikaWrapper);
+    }
+
+    @Test
+    void testSanitizeOnce() {
+        // 测试所有参数只在首次访问时检查一次，四种访问方式的结果一致
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("GET", "/index");
+        mockRequest.addParameter("name", " suda ");
+        mockRequest.addParameter("tags", " a ", " b ");
+        ArgumentHandlerHttpServletRequest request = new ArgumentHandlerHttpServletRequest(mockRequest,
+                stringMethodArgumentHandler, null);
+        for (int i = 0; i < 3; i++) {
+            assertThat(request.getParameter("name")).isEqualTo("suda");
+            assertThat(request.getParameterValues("tags")).containsExactly("a", "b");
+            assertThat(request.getParameterMap().get("tags")).containsExactly("a", "b");
+            assertThat(Collections.list(request.getParameterNames())).containsExactly("name", "tags");
+            assertThat(request.getParameter("missing")).isNull();
+            assertThat(request.getParameterValues("missing")).isNull();
+        }
+        assertThat(checks.get()).isEqualTo(3);
+        // 原始请求的参数不被修改
+        assertThat(mockRequest.getParameter("name")).isEqualTo(" suda ");
+    }
+
+    @Test
+    void testImmutableView() {
+        // 测试检查后的参数不可修改，返回的参数值数组被修改时不影响之后的访问
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("GET", "/index");
+        mockRequest.addParameter("name", " suda ");
+        ArgumentHandlerHttpServletRequest request = new ArgumentHandlerHttpServletRequest(mockRequest,
+                stringMethodArgumentHandler, null);
+        Map<String, String[]> parameterMap = request.getParameterMap();
+        assertThatExceptionOfType(UnsupportedOperationException.class)
+                .isThrownBy(() -> parameterMap.put("name", new String[]{"changed"}));
+        request.getParameterValues("name")[0] = "changed";
+        assertThat(request.getParameter("name")).isEqualTo("suda");
+        request.getParameterMap().get("name")[0] = "changed";
+        assertThat(request.getParameter("name")).isEqualTo("suda");
+        assertThat(request.getParameterValues("name")).containsExactly("suda");
+    }
+
+    @Test
+    void testInspectPartOnce() throws Exception {
+        // 测试同一个Part在多次getParts、getPart时只检查一次，检查不通过时再次访问会重新检查
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/upload");
+        mockRequest.setContentType("multipart/form-data");
+        mockRequest.addPart(new MockPart("first", "first.txt", "first".getBytes()));
+        mockRequest.addPart(new MockPart("second", "second.txt", "second".getBytes()));
+        ArgumentHandlerHttpServletRequest request = new ArgumentHandlerHttpServletRequest(mockRequest,
+                stringMethodArgumentHandler, fileMethodArgumentHandler);
+        request.getParts();
+        request.getParts();
+        request.getPart("first");
+        request.getPart("second");
+        assertThat(inspected).hasSize(2);
+        mockRequest.addPart(new MockPart("dangerous", "dangerous.txt", "dangerous".getBytes()));
+        for (int i = 0; i < 2; i++) {
+            assertThatIllegalStateException().isThrownBy(() -> request.getPart("dangerous"));
+        }
+        assertThat(inspected).hasSize(4);
+    }
+
+    @Test
+    void testShareInspectedParts() throws Exception {
+        // 测试请求包装类和参数解析器共用检查结论，任一方检查通过的Part另一方不再检查
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/upload");
+        mockRequest.setContentType("multipart/form-data");
+        mockRequest.addPart(new MockPart("first", "first.txt", "first".getBytes()));
+        ArgumentHandlerHttpServletRequest request = new ArgumentHandlerHttpServletRequest(mockRequest,
+                stringMethodArgumentHandler, fileMethodArgumentHandler);
+        Part first = request.getPart("first");
+        fileMethodArgumentHandler.securityChecks(first, request, null);
+        fileMethodArgumentHandler.securityChecks(new ArrayList<>(request.getParts()), request, null);
+        assertThat(inspected).hasSize(1);
+        Part second = new MockPart("second", "second.txt", "second".getBytes());
+        mockRequest.addPart(second);
+        fileMethodArgumentHandler.securityChecks(second, mockRequest, null);
+        request.getPart("second");
+        request.getParts();
+        assertThat(inspected).hasSize(2);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.chengsean.suda.core.resolver.request;
+
+import io.github.chengsean.suda.core.handler.MethodArgumentHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 参数检查过滤器单元测试{@link ArgumentResolverFilter}
+ * @author chengshaozhuang
+ */
+class ArgumentResolverFilterTests {
+
+    private final AtomicInteger preHandled = new AtomicInteger();
+    private final MethodArgumentHandler methodArgumentHandler = new MethodArgumentHandler() {
+        @Override
+        public Object securityChecks(Object arg, HttpServletRequest request, MethodParameter parameter) {
+            return arg;
+        }
+
+        @Override
+        public void preHandle(HttpServletRequest request) {
+            preHandled.incrementAndGet();
+        }
+    };
+    private final ArgumentResolverFilter filter = new ArgumentResolverFilter(methodArgumentHandler,
+            methodArgumentHandler, Arrays.asList("/actuator/**", "/favicon.ico"));
+
+    @Test
+    void testBypassWithoutInput() throws ServletException, IOException {
+        // 测试没有查询字符串的非表单、非文件上传请求不包装
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/index");
+        assertThat(doFilter(get)).isSameAs(get);
+        MockHttpServletRequest emptyQuery = new MockHttpServletRequest("GET", "/index");
+        emptyQuery.setQueryString("");
+        assertThat(doFilter(emptyQuery)).isSameAs(emptyQuery);
+        MockHttpServletRequest json = new MockHttpServletRequest("POST", "/account");
+        json.setContentType("application/json");
+        json.setContent("{\"name\":\"suda\"}".getBytes());
+        assertThat(doFilter(json)).isSameAs(json);
+        assertThat(filter.getBypassedCount()).isEqualTo(3);
+        assertThat(preHandled.get()).isZero();
+    }
+
+    @Test
+    void testWrapWithInput() throws ServletException, IOException {
+        // 测试有查询字符串、表单（包括PUT）、文件上传的请求包装检查，内容类型不区分大小写
+        MockHttpServletRequest query = new MockHttpServletRequest("GET", "/index");
+        query.setQueryString("name=suda");
+        query.addParameter("name", "suda");
+        assertThat(doFilter(query)).isInstanceOf(ArgumentHandlerHttpServletRequest.class);
+        MockHttpServletRequest form = new MockHttpServletRequest("PUT", "/account");
+        form.setContentType("Application/X-WWW-Form-Urlencoded; charset=UTF-8");
+        assertThat(doFilter(form)).isInstanceOf(ArgumentHandlerHttpServletRequest.class);
+        MockHttpServletRequest multipart = new MockHttpServletRequest("POST", "/upload");
+        multipart.setContentType("multipart/form-data; boundary=suda");
+        assertThat(doFilter(multipart)).isInstanceOf(ArgumentHandlerHttpServletRequest.class);
+        assertThat(filter.getBypassedCount()).isZero();
+        assertThat(preHandled.get()).isEqualTo(6);
+    }
+
+    @Test
+    void testExcludedPaths() throws ServletException, IOException {
+        // 测试排除的接口路径即使有查询字符串也不包装，其他路径仍包装
+        MockHttpServletRequest health = new MockHttpServletRequest("GET", "/actuator/health");
+        health.setQueryString("show=<script>");
+        assertThat(doFilter(health)).isSameAs(health);
+        MockHttpServletRequest favicon = new MockHttpServletRequest("GET", "/favicon.ico");
+        favicon.setQueryString("v=1");
+        assertThat(doFilter(favicon)).isSameAs(favicon);
+        MockHttpServletRequest account = new MockHttpServletRequest("GET", "/actuator-like/account");
+        account.setQueryString("v=1");
+        assertThat(doFilter(account)).isInstanceOf(ArgumentHandlerHttpServletRequest.class);
+        assertThat(filter.getBypassedCount()).isEqualTo(2);
+    }
+
+    private ServletRequest doFilter(MockHttpServletRequest request) throws ServletException, IOException {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest();
+    }
+}
@@ -0,0 +1,267 @@
+package io.github.chengsean.suda.core.tika;
+
+import io.github.chengsean.suda.core.exception.DangerousFileTypeException;
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import org.apache.tika.config.TikaConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 压缩包检查单元测试{@link ArchiveInspector}
+ * @author chengshaozhuang
+ */
+class ArchiveInspectorTests {
+
+    private static final byte[] LOCAL_HEADER = {'P', 'K', 3, 4};
+    private static final byte[] CENTRAL_HEADER = {'P', 'K', 1, 2};
+    private static final byte[] END_HEADER = {'P', 'K', 5, 6};
+
+    private final ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+    private final TikaWrapper tikaWrapper = new TikaWrapper(TikaConfig.getDefaultConfig(), properties);
+
+    ArchiveInspectorTests() {
+        properties.getFiles().setArchiveInspectionEnabled(true);
+    }
+
+    @Test
+    void testBlacklistedEntry() throws IOException {
+        // 测试压缩包中的文件名在扩展名黑名单上时被拒绝，未启用时不检查
+        byte[] secure = zip("docs/readme.txt", text("readme"), "images/", null);
+        byte[] dangerous = zip("docs/readme.txt", text("readme"), "webapp/Shell.JSP", text("<% %>"));
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("secure.zip", new ByteArrayResource(secure)));
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("dangerous.zip", new ByteArrayResource(dangerous)))
+                .withMessageContaining("webapp/Shell.JSP");
+        properties.getFiles().setArchiveInspectionEnabled(false);
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("dangerous.zip", new ByteArrayResource(dangerous)));
+    }
+
+    @Test
+    void testFileResource() throws IOException {
+        // 测试本地文件按位置读取中央目录
+        Path file = Files.createTempFile("suda-archive-", ".zip");
+        try {
+            Files.write(file, zip("a.txt", text("a"), "b.php", text("<?php")));
+            assertThatExceptionOfType(DangerousFileTypeException.class)
+                    .isThrownBy(() -> tikaWrapper.checkFileType("upload.zip", new FileSystemResource(file)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testEntryLimit() throws IOException {
+        // 测试文件数量超过限制时被拒绝
+        byte[] archive = zip("1.txt", text("1"), "2.txt", text("2"), "3.txt", text("3"), "4.txt", text("4"));
+        properties.getFiles().setArchiveMaxEntries(4);
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("entries.zip", new ByteArrayResource(archive)));
+        properties.getFiles().setArchiveMaxEntries(3);
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("entries.zip", new ByteArrayResource(archive)))
+                .withMessageContaining("number of entries");
+    }
+
+    @Test
+    void testCompressionRatio() throws IOException {
+        // 测试压缩比超过限制的文件被拒绝，无需解压
+        byte[] archive = zip("zeros.txt", new byte[4 * 1024 * 1024]);
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("bomb.zip", new ByteArrayResource(archive)))
+                .withMessageContaining("compression ratio");
+        properties.getFiles().setArchiveMaxCompressionRatio(100_000);
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("bomb.zip", new ByteArrayResource(archive)));
+    }
+
+    @Test
+    void testNestedArchives() throws IOException {
+        // 测试嵌套的压缩包：检查其中的文件名，嵌套层数超过限制时被拒绝
+        byte[] inner = zip("inner/Shell.jsp", text("<% %>"));
+        byte[] middle = zip("inner.dat", inner);
+        byte[] outer = zip("readme.txt", text("readme"), "middle.zip", middle);
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("outer.zip", new ByteArrayResource(outer)))
+                .withMessageContaining("inner/Shell.jsp");
+        properties.getFiles().setArchiveMaxDepth(2);
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("outer.zip", new ByteArrayResource(outer)))
+                .withMessageContaining("nesting depth");
+        byte[] secure = zip("readme.txt", text("readme"), "middle.zip", zip("inner.txt", text("inner")));
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("outer.zip", new ByteArrayResource(secure)));
+    }
+
+    @Test
+    void testTar() throws IOException {
+        // 测试TAR中的文件名，包括嵌套在TAR中的ZIP
+        byte[] secure = tar("docs/readme.txt", text("readme"));
+        byte[] dangerous = tar("docs/readme.txt", text("readme"), "bin/run.py", text("print()"));
+        byte[] nested = tar("docs/readme.txt", text("readme"), "lib.zip", zip("index.php", text("<?php")));
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("secure.tar", new ByteArrayResource(secure)));
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("dangerous.tar", new ByteArrayResource(dangerous)))
+                .withMessageContaining("bin/run.py");
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("nested.tar", new ByteArrayResource(nested)))
+                .withMessageContaining("index.php");
+    }
+
+    @Test
+    void testLocalHeaderMismatch() throws IOException {
+        // 测试本地文件头的文件名与中央目录不一致时被拒绝，顺序读取的解压程序会取出本地文件头中的文件名
+        byte[] archive = zip("aaaaa.txt", text("<% %>"));
+        int local = indexOf(archive, LOCAL_HEADER, 0);
+        put(archive, local + 30, "shell.jsp");
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("mismatch.zip", new ByteArrayResource(archive)))
+                .withMessageContaining("local file headers");
+    }
+
+    @Test
+    void testMissingCentralDirectory() throws IOException {
+        // 测试只有本地文件头、没有中央目录和结束记录的压缩包被拒绝
+        byte[] archive = zip("readme.txt", text("readme"));
+        byte[] stripped = Arrays.copyOf(archive, indexOf(archive, CENTRAL_HEADER, 0));
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("stripped.zip", new ByteArrayResource(stripped)))
+                .withMessageContaining("end of central directory");
+    }
+
+    @Test
+    void testMalformedCentralDirectory() throws IOException {
+        // 测试中央目录无法完整解析，或者文件数量与结束记录不一致时被拒绝
+        byte[] archive = zip("a.txt", text("a"), "b.txt", text("b"));
+        byte[] corrupted = archive.clone();
+        corrupted[indexOf(corrupted, CENTRAL_HEADER, indexOf(corrupted, CENTRAL_HEADER, 0) + 1)] = 0;
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("corrupted.zip", new ByteArrayResource(corrupted)))
+                .withMessageContaining("central directory is malformed");
+        byte[] miscounted = archive.clone();
+        int end = indexOf(miscounted, END_HEADER, 0);
+        miscounted[end + 8] = 3;
+        miscounted[end + 10] = 3;
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("miscounted.zip", new ByteArrayResource(miscounted)))
+                .withMessageContaining("central directory is malformed");
+    }
+
+    @Test
+    void testUnlistedLocalHeader() throws IOException {
+        // 测试中央目录中没有的本地文件头被拒绝，无论位于其他文件之前还是之后
+        byte[] leading = zip("hidden.jsp", text("<% %>"), "docs/", null, "readme.txt", text("readme"));
+        byte[] trailing = zip("docs/", null, "readme.txt", text("readme"), "hidden.jsp", text("<% %>"));
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("leading.zip", new ByteArrayResource(unlist(leading, 0))))
+                .withMessageContaining("not listed in the central directory");
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("trailing.zip", new ByteArrayResource(unlist(trailing, 2))))
+                .withMessageContaining("not listed in the central directory");
+        byte[] secure = zip("docs/", null, "readme.txt", text("readme"));
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("secure.zip", new ByteArrayResource(secure)));
+    }
+
+    private static byte[] text(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 创建ZIP，参数为文件名和内容交替，内容为{@code null}时创建目录
+     */
+    private static byte[] zip(Object... entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) entries[i]));
+                if (entries[i + 1] != null) {
+                    zip.write((byte[]) entries[i + 1]);
+                }
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 创建ustar格式的TAR，参数为文件名和内容交替
+     */
+    private static byte[] tar(Object... entries) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < entries.length; i += 2) {
+            byte[] content = (byte[]) entries[i + 1];
+            byte[] header = new byte[512];
+            put(header, 0, (String) entries[i]);
+            put(header, 100, "0000644");
+            put(header, 108, "0000000");
+            put(header, 116, "0000000");
+            put(header, 124, String.format("%011o", content.length));
+            put(header, 136, String.format("%011o", 0));
+            header[156] = '0';
+            put(header, 257, "ustar");
+            put(header, 263, "00");
+            put(header, 148, "        ");
+            int checksum = 0;
+            for (byte b : header) {
+                checksum += b & 0xff;
+            }
+            put(header, 148, String.format("%06o", checksum));
+            header[154] = 0;
+            header[155] = ' ';
+            out.write(header, 0, header.length);
+            out.write(content, 0, content.length);
+            out.write(new byte[(512 - content.length % 512) % 512], 0, (512 - content.length % 512) % 512);
+        }
+        out.write(new byte[1024], 0, 1024);
+        return out.toByteArray();
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    /**
+     * 从中央目录中删除第{@code index}个文件并更新结束记录，本地文件头保留在原处
+     */
+    private static byte[] unlist(byte[] archive, int index) {
+        int start = indexOf(archive, CENTRAL_HEADER, 0);
+        for (int i = 0; i < index; i++) {
+            start = indexOf(archive, CENTRAL_HEADER, start + 1);
+        }
+        int length = 46 + u16(archive, start + 28) + u16(archive, start + 30) + u16(archive, start + 32);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(archive, 0, start);
+        out.write(archive, start + length, archive.length - start - length);
+        byte[] bytes = out.toByteArray();
+        int end = indexOf(bytes, END_HEADER, 0);
+        bytes[end + 8]--;
+        bytes[end + 10]--;
+        int directorySize = u16(bytes, end + 12) - length;
+        bytes[end + 12] = (byte) directorySize;
+        bytes[end + 13] = (byte) (directorySize >> 8);
+        return bytes;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] signature, int from) {
+        for (int i = from; i <= bytes.length - signature.length; i++) {
+            if (bytes[i] == signature[0] && bytes[i + 1] == signature[1] && bytes[i + 2] == signature[2]
+                    && bytes[i + 3] == signature[3]) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Signature not found");
+    }
+
+    private static int u16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.chengsean.suda.core.tika;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MimeTypes;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 文件扩展名表单元测试{@link ExtensionTable}
+ * @author chengshaozhuang
+ */
+class ExtensionTableTests {
+
+    private final MimeTypes mimeTypes = TikaConfig.getDefaultConfig().getMimeRepository();
+
+    @Test
+    void testConsistentWithTika() throws IOException {
+        // 测试预先计算的文件类型与Tika按文件名检测的结果一致
+        ExtensionTable table = ExtensionTable.build(mimeTypes, new String[0]);
+        String[] extensions = {".pdf", ".docx", ".xlsx", ".jpg", ".jpeg", ".png", ".csv", ".txt", ".zip", ".json",
+                ".xml", ".html", ".js", ".unknown-extension"};
+        for (String extension : extensions) {
+            Metadata metadata = new Metadata();
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, extension);
+            assertThat(table.get(extension).getMediaType()).as(extension).isEqualTo(mimeTypes.detect(null, metadata));
+            assertThat(table.get(extension.toUpperCase()).getMediaType()).as(extension)
+                    .isEqualTo(mimeTypes.detect(null, metadata));
+        }
+    }
+
+    @Test
+    void testAcceptedTypes() {
+        // 测试扩展名的文件类型及其父类型与扩展名一致
+        ExtensionTable table = ExtensionTable.build(mimeTypes, new String[0]);
+        ExtensionTable.Entry docx = table.get(".docx");
+        assertThat(docx.accepts(docx.getMediaType())).isTrue();
+        assertThat(docx.accepts(MediaType.application("x-tika-ooxml"))).isTrue();
+        assertThat(docx.accepts(MediaType.application("zip"))).isTrue();
+        assertThat(docx.accepts(MediaType.application("pdf"))).isFalse();
+        assertThat(table.get(".png").accepts(MediaType.image("jpeg"))).isFalse();
+    }
+
+    @Test
+    void testBlacklist() {
+        // 测试黑名单不区分大小写，变更黑名单时不影响文件类型
+        String[] blacklist = {".js", ".PHP"};
+        ExtensionTable table = ExtensionTable.build(mimeTypes, blacklist);
+        assertThat(table.isBuiltFrom(blacklist)).isTrue();
+        assertThat(table.get(".js").isBlacklisted()).isTrue();
+        assertThat(table.get(".JS").isBlacklisted()).isTrue();
+        assertThat(table.get(".php").isBlacklisted()).isTrue();
+        assertThat(table.get(".pdf").isBlacklisted()).isFalse();
+        assertThat(table.getBlacklistText()).isEqualTo(".js,.PHP");
+        ExtensionTable changed = table.withBlacklist(new String[]{".pdf"});
+        assertThat(changed.get(".js").isBlacklisted()).isFalse();
+        assertThat(changed.get(".pdf").isBlacklisted()).isTrue();
+        assertThat(changed.get(".pdf").getMediaType()).isEqualTo(table.get(".pdf").getMediaType());
+    }
+}
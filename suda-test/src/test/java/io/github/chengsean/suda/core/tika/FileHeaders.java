@@ -0,0 +1,40 @@
+package io.github.chengsean.suda.core.tika;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 文件类型检测单元测试共用的文件头
+ * @author chengshaozhuang
+ */
+final class FileHeaders {
+
+    private FileHeaders() {
+    }
+
+    static byte[] header(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static byte[] header(int... bytes) {
+        byte[] header = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            header[i] = (byte) bytes[i];
+        }
+        return header;
+    }
+
+    /**
+     * ZIP本地文件头，第一个文件名位于第30个字节
+     */
+    static byte[] zipHeader(String firstEntryName) {
+        byte[] name = firstEntryName.getBytes(StandardCharsets.US_ASCII);
+        byte[] header = new byte[30 + name.length];
+        header[0] = 'P';
+        header[1] = 'K';
+        header[2] = 3;
+        header[3] = 4;
+        header[26] = (byte) name.length;
+        System.arraycopy(name, 0, header, 30, name.length);
+        return header;
+    }
+}
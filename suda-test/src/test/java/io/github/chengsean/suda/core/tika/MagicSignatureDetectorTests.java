@@ -0,0 +1,98 @@
+package io.github.chengsean.suda.core.tika;
+
+import io.github.chengsean.suda.core.exception.IllegalFileTypeException;
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MimeTypes;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.chengsean.suda.core.tika.FileHeaders.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 内置文件头检测单元测试{@link MagicSignatureDetector}
+ * @author chengshaozhuang
+ */
+class MagicSignatureDetectorTests {
+
+    private final MimeTypes mimeTypes = TikaConfig.getDefaultConfig().getMimeRepository();
+    private final MagicSignatureDetector detector = new MagicSignatureDetector(mimeTypes.getMediaTypeRegistry());
+
+    @Test
+    void testConsistentWithTika() throws IOException {
+        // 测试内置检测与Tika的检测结果一致
+        Map<String, byte[]> headers = new LinkedHashMap<>();
+        headers.put("image/jpeg", header(0xFF, 0xD8, 0xFF, 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00));
+        headers.put("image/png", header(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0x00, 0x00, 0x00, 0x0D, 'I', 'H', 'D', 'R'));
+        headers.put("image/gif", header("GIF89a"));
+        headers.put("image/vnd.adobe.photoshop", header("8BPS\0\1\0\0"));
+        headers.put("image/x-xcf", header("gimp xcf v001"));
+        headers.put("image/jp2", header(0x00, 0x00, 0x00, 0x0C, 'j', 'P', ' ', ' ', 0x0D, 0x0A, 0x87, 0x0A,
+                0x00, 0x00, 0x00, 0x14, 'f', 't', 'y', 'p', 'j', 'p', '2', ' '));
+        headers.put("application/pdf", header("%PDF-1.7\n"));
+        headers.put("application/rtf", header("{\\rtf1\\ansi"));
+        headers.put("application/x-sqlite3", header("SQLite format 3\0"));
+        headers.put("application/gzip", header(0x1F, 0x8B, 0x08, 0x00));
+        headers.put("application/x-compress", header(0x1F, 0x9D, 0x90));
+        headers.put("application/x-bzip2", header("BZh91AY&SY"));
+        headers.put("application/x-7z-compressed", header(0x37, 0x7A, 0xBC, 0xAF, 0x27, 0x1C, 0x00, 0x04));
+        headers.put("application/x-xz", header(0xFD, '7', 'z', 'X', 'Z', 0x00));
+        headers.put("application/zstd", header(0x28, 0xB5, 0x2F, 0xFD));
+        headers.put("application/vnd.ms-cab-compressed", header("MSCF\0\0\0\0"));
+        headers.put("application/x-rpm", header(0xED, 0xAB, 0xEE, 0xDB, 0x03, 0x00));
+        headers.put("application/x-tika-ooxml", zipHeader("[Content_Types].xml"));
+        headers.put("audio/x-flac", header("fLaC\0\0\0\042"));
+        headers.put("video/x-flv", header(0x46, 0x4C, 0x56, 0x01, 0x05));
+        headers.put("image/webp", header("RIFF\0\0\0\0WEBPVP8 "));
+        headers.put("audio/vnd.wave", header("RIFF\0\0\0\0WAVEfmt "));
+        headers.put("video/x-msvideo", header("RIFF\0\0\0\0AVI LIST"));
+        headers.put("application/wasm", header(0x00, 'a', 's', 'm', 0x01, 0x00, 0x00, 0x00));
+        headers.put("application/x-shockwave-flash", header("FWS\6"));
+        for (Map.Entry<String, byte[]> entry : headers.entrySet()) {
+            byte[] header = entry.getValue();
+            MediaType byTika = mimeTypes.detect(new ByteArrayInputStream(header), new Metadata());
+            assertThat(detector.detect(header, header.length)).as(entry.getKey())
+                    .isEqualTo(MediaType.parse(entry.getKey()))
+                    .isEqualTo(byTika);
+        }
+    }
+
+    @Test
+    void testUnknownSignatures() {
+        // 测试未知的签名以及不能确定具体类型的容器格式返回null
+        byte[] text = header("window.onload=function() {}");
+        assertThat(detector.detect(text, text.length)).isNull();
+        byte[] zip = zipHeader("mimetypeapplication/epub+zip");
+        assertThat(detector.detect(zip, zip.length)).isNull();
+        byte[] riff = header("RIFF\0\0\0\0ABCD");
+        byte[] jpx = header(0x00, 0x00, 0x00, 0x0C, 'j', 'P', ' ', ' ', 0x0D, 0x0A, 0x87, 0x0A,
+                0x00, 0x00, 0x00, 0x14, 'f', 't', 'y', 'p', 'j', 'p', 'x', ' ');
+        assertThat(detector.detect(jpx, jpx.length)).isNull();
+        assertThat(detector.detect(riff, riff.length)).isNull();
+        // 文件头不完整
+        byte[] png = header(0x89, 'P', 'N', 'G');
+        assertThat(detector.detect(png, png.length)).isNull();
+        assertThat(detector.detect(new byte[0], 0)).isNull();
+    }
+
+    @Test
+    void testCheckFileType() {
+        // 测试由内置检测通过，以及与扩展名不一致时由Tika拒绝
+        TikaWrapper tikaWrapper = new TikaWrapper(TikaConfig.getDefaultConfig(), new ArgumentHandlerProperties());
+        byte[] docx = zipHeader("[Content_Types].xml");
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("foo.docx", () -> new ByteArrayInputStream(docx)));
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("foo.xlsx", () -> new ByteArrayInputStream(docx)));
+        byte[] pdf = header("%PDF-1.7\n");
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("foo.pdf", () -> new ByteArrayInputStream(pdf)));
+        assertThatExceptionOfType(IllegalFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("foo.png", () -> new ByteArrayInputStream(pdf)));
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.chengsean.suda.core.tika;
+
+import io.github.chengsean.suda.core.exception.DangerousFileTypeException;
+import io.github.chengsean.suda.core.exception.IllegalFileTypeException;
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MimeTypes;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.chengsean.suda.core.tika.FileHeaders.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 类型库单元测试{@link MimeRepositoryMode}
+ * @author chengshaozhuang
+ */
+class MimeRepositoryModeTests {
+
+    private final MimeTypes full = MimeRepositoryMode.FULL.load();
+    private final MimeTypes minimal = MimeRepositoryMode.MINIMAL.load();
+
+    @Test
+    void testMinimalRepository() {
+        // 测试精简的类型库只加载一次，类型数量远少于完整的类型库
+        assertThat(MimeRepositoryMode.MINIMAL.load()).isSameAs(minimal);
+        assertThat(minimal.getMediaTypeRegistry().getTypes().size())
+                .isLessThan(full.getMediaTypeRegistry().getTypes().size() / 10);
+    }
+
+    @Test
+    void testConsistentWithFullRepository() throws IOException {
+        // 测试常见文件的检测结果与完整的类型库一致
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("photo.jpg", header(0xFF, 0xD8, 0xFF, 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00));
+        files.put("image.png", header(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0x00, 0x00, 0x00, 0x0D));
+        files.put("report.pdf", header("%PDF-1.7\n"));
+        files.put("report.docx", zipHeader("[Content_Types].xml"));
+        files.put("report.xlsx", zipHeader("[Content_Types].xml"));
+        files.put("archive.zip", zipHeader("readme.txt"));
+        files.put("archive.gz", header(0x1F, 0x8B, 0x08, 0x00));
+        files.put("archive.7z", header(0x37, 0x7A, 0xBC, 0xAF, 0x27, 0x1C, 0x00, 0x04));
+        files.put("legacy.doc", header(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1));
+        files.put("setup.exe", header("MZ\u0090\0\3\0\0\0\4\0\0\0"));
+        files.put("program", header(0x7F, 'E', 'L', 'F', 0x02, 0x01, 0x01, 0x00));
+        files.put("Main.class", header(0xCA, 0xFE, 0xBA, 0xBE, 0x00, 0x00, 0x00, 0x34));
+        files.put("shell.php", header("<?php echo 1; ?>"));
+        files.put("index.html", header("<!DOCTYPE html><html><body></body></html>"));
+        files.put("notes.txt", header("hello world\n"));
+        files.put("data.csv", header("id,name\n1,suda\n"));
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            assertThat(detect(minimal, entry.getKey(), entry.getValue())).as(entry.getKey())
+                    .isEqualTo(detect(full, entry.getKey(), entry.getValue()));
+        }
+    }
+
+    @Test
+    void testCheckFileType() {
+        // 测试使用精简的类型库检测文件类型：篡改扩展名、扩展名黑名单与完整的类型库一致
+        TikaWrapper tikaWrapper = new TikaWrapper(minimal, new ArgumentHandlerProperties());
+        byte[] pdf = header("%PDF-1.7\n");
+        assertThatNoException().isThrownBy(() -> tikaWrapper.checkFileType("report.pdf", new ByteArrayResource(pdf)));
+        assertThatExceptionOfType(IllegalFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("report.png", new ByteArrayResource(pdf)));
+        assertThatExceptionOfType(IllegalFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("photo.jpg", new ByteArrayResource(header("MZ\u0090\0\3\0"))));
+        assertThatExceptionOfType(DangerousFileTypeException.class)
+                .isThrownBy(() -> tikaWrapper.checkFileType("index.jsp", new ByteArrayResource(header("<% %>"))));
+        assertThat(tikaWrapper.getTikaConfig()).isNotNull();
+    }
+
+    private static String detect(MimeTypes mimeTypes, String filename, byte[] header) throws IOException {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, filename);
+        return mimeTypes.detect(new ByteArrayInputStream(header), metadata).toString();
+    }
+}
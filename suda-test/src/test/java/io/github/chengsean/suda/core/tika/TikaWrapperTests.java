@@ -0,0 +1,180 @@
+package io.github.chengsean.suda.core.tika;
+
+import io.github.chengsean.suda.core.exception.DangerousFileTypeException;
+import io.github.chengsean.suda.core.exception.IllegalFileTypeException;
+import io.github.chengsean.suda.core.handler.ArgumentHandlerProperties;
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.config.TikaConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 文件类型检测单元测试{@link TikaWrapper}
+ * @author chengshaozhuang
+ */
+class TikaWrapperTests {
+
+    private final TikaWrapper tikaWrapper = new TikaWrapper(TikaConfig.getDefaultConfig(), new ArgumentHandlerProperties());
+
+    @Test
+    void testConcurrentChecks() throws Exception {
+        // 测试并发检测时文件名互不影响：篡改扩展名的文件总是被检测出来，正常文件总是通过
+        byte[] fakePdf = readResource("fake-pdf.pdf");
+        byte[] secureFile = readResource("secure-file.txt");
+        int threads = 8;
+        int iterations = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int errors = 0;
+                    for (int i = 0; i < iterations; i++) {
+                        if (!isRejected("fake-pdf.pdf", fakePdf) || isRejected("secure-file.txt", secureFile)) {
+                            errors++;
+                        }
+                    }
+                    return errors;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                assertThat(future.get(60, TimeUnit.SECONDS)).isZero();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSniffHeaderOnly() throws IOException {
+        // 测试只读取文件头：超过读取长度的部分不会被读取
+        ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+        properties.getFiles().setSniffLength(1024);
+        TikaWrapper wrapper = new TikaWrapper(TikaConfig.getDefaultConfig(), properties);
+        byte[] content = new byte[1024 * 1024];
+        Arrays.fill(content, (byte) ' ');
+        byte[] fakePdf = readResource("fake-pdf.pdf");
+        System.arraycopy(fakePdf, 0, content, 0, Math.min(fakePdf.length, 1024));
+        int[] read = new int[1];
+        InputStream inputStream = new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int n = super.read(b, off, len);
+                read[0] += Math.max(n, 0);
+                return n;
+            }
+        };
+        assertThatExceptionOfType(IllegalFileTypeException.class)
+                .isThrownBy(() -> wrapper.checkFileType("fake-pdf.pdf", () -> inputStream));
+        assertThat(read[0]).isEqualTo(1024);
+    }
+
+    @Test
+    void testDefaultSniffLength() {
+        // 测试未配置读取长度时与Tika类型库的检测长度一致
+        assertThat(tikaWrapper.getSniffLength())
+                .isEqualTo(TikaConfig.getDefaultConfig().getMimeRepository().getMinLength());
+    }
+
+    @Test
+    void testSniffFileResource() throws IOException {
+        // 测试本地文件按位置读取文件头
+        Path fakePdf = Files.createTempFile("fake-pdf", ".pdf");
+        Path secureFile = Files.createTempFile("secure-file", ".txt");
+        try {
+            Files.write(fakePdf, readResource("fake-pdf.pdf"));
+            Files.write(secureFile, readResource("secure-file.txt"));
+            assertThatExceptionOfType(IllegalFileTypeException.class)
+                    .isThrownBy(() -> tikaWrapper.checkFileType("fake-pdf.pdf", new FileSystemResource(fakePdf)));
+            assertThatNoException().isThrownBy(() ->
+                    tikaWrapper.checkFileType("secure-file.txt", new FileSystemResource(secureFile)));
+        } finally {
+            Files.deleteIfExists(fakePdf);
+            Files.deleteIfExists(secureFile);
+        }
+    }
+
+    @Test
+    void testBlacklistWithoutReading() {
+        // 测试扩展名在黑名单上时不读取文件
+        assertThatExceptionOfType(DangerousFileTypeException.class).isThrownBy(() ->
+                tikaWrapper.checkFileType("blacklist-file.js", () -> {
+                    throw new IllegalStateException("should not be read");
+                }));
+    }
+
+    @Test
+    void testVerdictCache() throws IOException {
+        // 测试缓存检测通过的结论：相同的文件头和扩展名命中，检测不通过的文件不缓存
+        ArgumentHandlerProperties properties = new ArgumentHandlerProperties();
+        TikaWrapper wrapper = new TikaWrapper(TikaConfig.getDefaultConfig(), properties);
+        assertThat(wrapper.getVerdictCache()).isNull();
+        properties.getFiles().setVerdictCacheEnabled(true);
+        properties.getFiles().setVerdictCacheSize(2);
+        VerdictCache cache = wrapper.getVerdictCache();
+        assertThat(cache).isNotNull();
+        byte[] secureFile = readResource("secure-file.txt");
+        byte[] fakePdf = readResource("fake-pdf.pdf");
+        wrapper.checkFileType("secure-file.txt", new ByteArrayInputStream(secureFile));
+        wrapper.checkFileType("secure-file.txt", new ByteArrayInputStream(secureFile));
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        // 相同的内容，不同的扩展名
+        assertThatExceptionOfType(IllegalFileTypeException.class)
+                .isThrownBy(() -> wrapper.checkFileType("secure-file.pdf", new ByteArrayInputStream(secureFile)));
+        assertThatExceptionOfType(IllegalFileTypeException.class)
+                .isThrownBy(() -> wrapper.checkFileType("fake-pdf.pdf", new ByteArrayInputStream(fakePdf)));
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        // 超过最大数量时淘汰
+        wrapper.checkFileType("fake-pdf.txt", new ByteArrayInputStream(fakePdf));
+        wrapper.checkFileType("other.txt", new ByteArrayInputStream("suda".getBytes()));
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        // 配置变更时重新创建
+        properties.getFiles().setVerdictCacheTtl(Duration.ZERO);
+        VerdictCache expiring = wrapper.getVerdictCache();
+        assertThat(expiring).isNotSameAs(cache);
+        wrapper.checkFileType("secure-file.txt", new ByteArrayInputStream(secureFile));
+        wrapper.checkFileType("secure-file.txt", new ByteArrayInputStream(secureFile));
+        assertThat(expiring.getHitCount()).isZero();
+        assertThat(expiring.getMissCount()).isEqualTo(2);
+    }
+
+    private boolean isRejected(String filename, byte[] content) throws IOException {
+        try {
+            tikaWrapper.checkFileType(filename, new ByteArrayInputStream(content));
+            return false;
+        } catch (IllegalFileTypeException e) {
+            return true;
+        }
+    }
+
+    private byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream(name))) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+}